@@ -0,0 +1,192 @@
+/*
+ * Name: Jack Whitman
+ * Description: The AllocationBudget class checks that the game does not allocate while it plays. It drives everything one step of the game does without a window: the bot's keys go through the InputQueue into the GameSession, whose step is the same one the game panel runs, and its events and animation are played into the effects and player like the renderer does. Every tick's allocated bytes are read from the thread's allocation counter, and it exits with an error if a tick outside a screen regeneration or restart allocates more than the budget.
+ */
+package caveRunner;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+public class AllocationBudget {
+	//Constants
+	private final static int WORST_TICKS = 5, MAX_WARMUP_ROUNDS = 50;
+	
+	//Usage: AllocationBudget [--ticks n] [--warmup n] [--budget bytes] [--seed n] [--endless]
+	public static void main(String[] args) {
+		int ticks = 200_000, warmup = 20_000;
+		long budget = 0, seed = 1;
+		boolean endless = false;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--ticks")) ticks = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--warmup")) warmup = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--budget")) budget = Long.parseLong(args[++i]);
+			else if (args[i].equals("--seed")) seed = Long.parseLong(args[++i]);
+			else if (args[i].equals("--endless")) endless = true;
+			else {
+				System.out.println("Usage: AllocationBudget [--ticks n] [--warmup n] [--budget bytes] [--seed n] [--endless]");
+				System.exit(2);
+			}
+		}
+		if (warmup < 1) {
+			System.out.println("--warmup must be at least 1 tick");
+			System.exit(2);
+		}
+		
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		if (!threads.isThreadAllocatedMemorySupported()) {
+			System.out.println("This JVM cannot count allocated bytes per thread");
+			System.exit(2);
+		}
+		threads.setThreadAllocatedMemoryEnabled(true);
+		CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+		if (jit == null || !jit.isCompilationTimeMonitoringSupported()) {
+			System.out.println("This JVM cannot tell when the JIT has finished compiling");
+			System.exit(2);
+		}
+		
+		//Warm up in rounds through the same loop that measures, so the JIT compiles the measuring along with the tick, until a whole round compiles nothing
+		GameDriver game = new GameDriver(seed, endless);
+		long tick = 0, compileMs;
+		int rounds = 0;
+		do {
+			compileMs = jit.getTotalCompilationTime();
+			measure(game, threads, warmup, budget, tick);
+			tick += warmup;
+			rounds++;
+		} while (jit.getTotalCompilationTime() != compileMs && rounds < MAX_WARMUP_ROUNDS);
+		if (rounds == MAX_WARMUP_ROUNDS) System.out.println("The JIT was still compiling after " + tick + " warmup ticks");
+		else System.out.println("Warmed up for " + tick + " ticks, the JIT compiled nothing in the last " + warmup);
+		
+		Measurement result = measure(game, threads, ticks, budget, tick);
+		System.out.printf(Locale.ROOT, "%d steady ticks allocated %d bytes (%.2f per tick), %d over the budget of %d bytes%n", result.steadyTicks, result.steadyBytes, (double) result.steadyBytes / Math.max(result.steadyTicks, 1), result.overBudget, budget);
+		System.out.printf(Locale.ROOT, "%d regeneration and restart ticks allocated %d bytes%n", result.exemptTicks, result.exemptBytes);
+		for (int i = 0; i < WORST_TICKS && result.worstBytes[i] > 0; i++)
+			System.out.println("  tick " + result.worstTick[i] + ": " + result.worstBytes[i] + " bytes");
+		if (result.overBudget > 0) System.exit(1);
+	}
+	
+	//Play ticks ticks and count what each one allocated, firstTick numbers them in the report
+	private static Measurement measure(GameDriver game, com.sun.management.ThreadMXBean threads, int ticks, long budget, long firstTick) {
+		Measurement result = new Measurement();
+		for (int i = 0; i < ticks; i++) {
+			long before = threads.getCurrentThreadAllocatedBytes();
+			boolean exempt = game.tick();
+			long bytes = threads.getCurrentThreadAllocatedBytes() - before;
+			if (exempt) {
+				result.exemptTicks++;
+				result.exemptBytes += bytes;
+				continue;
+			}
+			result.steadyTicks++;
+			result.steadyBytes += bytes;
+			if (bytes > budget) {
+				result.overBudget++;
+				keepWorst(result.worstBytes, result.worstTick, bytes, firstTick + i);
+			}
+		}
+		return result;
+	}
+	
+	//Keep the largest allocations, biggest first
+	private static void keepWorst(long[] worstBytes, long[] worstTick, long bytes, long tick) {
+		for (int i = 0; i < worstBytes.length; i++) {
+			if (bytes <= worstBytes[i]) continue;
+			System.arraycopy(worstBytes, i, worstBytes, i + 1, worstBytes.length - i - 1);
+			System.arraycopy(worstTick, i, worstTick, i + 1, worstTick.length - i - 1);
+			worstBytes[i] = bytes;
+			worstTick[i] = tick;
+			return;
+		}
+	}
+	
+	//What a run of ticks allocated
+	private static class Measurement {
+		long steadyTicks, steadyBytes, exemptTicks, exemptBytes, overBudget;
+		long[] worstBytes = new long[WORST_TICKS], worstTick = new long[WORST_TICKS];
+	}
+	
+	//One game played by the bot through the same GameSession the game panel plays
+	private static class GameDriver implements SimulationListener {
+		private GameSession session;
+		private CaveSimulation sim;
+		private SelfPlayBot bot;
+		private InputQueue inputQueue;
+		private SnapshotBuffer snapshots;
+		private SimEvents events;
+		private CaveEffects effects;
+		private Player plr;
+		private int heldBits;
+		private boolean regenerated;
+		
+		GameDriver(long seed, boolean endless) {
+			session = new GameSession(this, endless, seed);
+			sim = session.getSimulation();
+			sim.setVerbose(false);
+			inputQueue = session.getInputQueue();
+			snapshots = session.getSnapshots();
+			bot = new SelfPlayBot(20);
+			events = new SimEvents();
+			effects = new CaveEffects();
+			plr = new Player(sim.getPlayerX(), sim.getPlayerY());
+		}
+		
+		//Play one tick, returns true if the cave was regenerated or the game restarted during it
+		boolean tick() {
+			regenerated = false;
+			
+			//Press and release keys like the key listener would
+			int bits = bot.decide(sim).getBits();
+			for (int key = InputState.LEFT; key <= InputState.JUMP; key <<= 1)
+				if ((bits & key) != (heldBits & key)) inputQueue.offer(key, (bits & key) != 0, System.nanoTime());
+			heldBits = bits;
+			
+			//What the simulation thread does
+			session.step();
+			
+			//What the renderer does for each step
+			SimSnapshot snapshot = snapshots.getLatest();
+			events.drainTo(effects, snapshot.getTick());
+			effects.tick(snapshot);
+			if (snapshot.getAnimation() != CaveSimulation.NO_ANIMATION) plr.animate(snapshot.getAnimation(), snapshot.isFacingBack());
+			plr.advance(CaveSimulation.TICK_MS * 1_000_000L);
+			inputQueue.frameShown(System.nanoTime(), snapshot.getTick());
+			
+			//Start over when the bot dies, with a new replay like the game does
+			if (sim.isDead()) {
+				session.restart(sim.getSeed() + 1);
+				heldBits = 0;
+				session.resume(heldBits);
+				events.clear();
+				effects.reset();
+				bot = new SelfPlayBot(20);
+				return true;
+			}
+			return regenerated;
+		}
+		
+		//Simulation events, passed on like the game panel does
+		public void scoreIncreased() {}
+		public void playerDied() {}
+		
+		public void caveRegenerated() {
+			regenerated = true;
+			events.offer(sim.getTick(), SimEvents.REGENERATED, 0, 0, 0);
+		}
+		
+		public void caveClosing() {
+			events.offer(sim.getTick(), SimEvents.CAVE_CLOSING, 0, 0, 0);
+		}
+		
+		public void caveOpening() {
+			events.offer(sim.getTick(), SimEvents.CAVE_OPENING, 0, 0, 0);
+		}
+		
+		public void playerLanded(int x, int y, int speed) {
+			events.offer(sim.getTick(), SimEvents.LANDED, x, y, speed);
+		}
+		
+		public void playerCrossedStep(int x, int y) {
+			events.offer(sim.getTick(), SimEvents.STEP, x, y, 0);
+		}
+	}
+}
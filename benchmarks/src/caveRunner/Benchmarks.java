@@ -0,0 +1,255 @@
+/*
+ * Name: Jack Whitman
+ * Description: The Benchmarks class holds the JMH benchmarks for the game's hot paths: generating a cave column, one simulation tick, saving a tick for rewinding, scheduling events on the timing wheel, building the sprite atlas, one full cave closing cycle, drawing one frame offscreen, and moving and drawing a full pool of particles. Each benchmark keeps its own state and runs in forked JVMs started with only the options listed in the @Fork annotation, so the JIT compiles it without having seen the others and no agent or debugger flag of the launching JVM reaches the measurement. Its main compares two result files saved with JMH's -rf csv, so every performance change comes with a before and after number.
+ */
+package caveRunner;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-Djava.awt.headless=true", "-Xms512m", "-Xmx512m"})
+public class Benchmarks {
+	//Constants
+	private final static long SEED = 42;
+	
+	//Generate one column into a ring buffer that keeps dropping the oldest column
+	@State(Scope.Thread)
+	public static class ColumnState {
+		CaveColumns columns;
+		CaveGenerator generator;
+		
+		@Setup
+		public void setup() {
+			columns = new CaveColumns(1024);
+			generator = new CaveGenerator(SEED);
+			generator.reset(columns, true);
+		}
+	}
+	
+	@Benchmark
+	public int generateColumn(ColumnState state) {
+		state.generator.generateNext(state.columns);
+		return state.columns.getTopHeight(state.columns.getEnd() - 1);
+	}
+	
+	//One tick of an endless game with a player that runs right and jumps, restarting when they die
+	@State(Scope.Thread)
+	public static class TickState {
+		CaveSimulation sim;
+		InputState input;
+		
+		@Setup
+		public void setup() {
+			sim = newSimulation(true);
+			input = new InputState();
+			input.setRight(true);
+		}
+	}
+	
+	@Benchmark
+	public int simulationTick(TickState state) {
+		CaveSimulation sim = state.sim;
+		state.input.setJump(sim.getTick() % 40 < 5);
+		sim.step(state.input);
+		if (sim.isDead()) sim.restart(SEED);
+		return sim.getPlayerX();
+	}
+	
+	//Save one tick of an endless game for rewinding, the cost added to every tick
+	@State(Scope.Thread)
+	public static class RewindState {
+		CaveSimulation sim;
+		RewindBuffer rewind;
+		
+		@Setup
+		public void setup() {
+			sim = newSimulation(true);
+			InputState input = new InputState();
+			input.setRight(true);
+			for (int i = 0; i < 100; i++)
+				sim.step(input);
+			rewind = sim.createRewindBuffer(GameSession.REWIND_TICKS + 1);
+		}
+	}
+	
+	@Benchmark
+	public int rewindSave(RewindState state) {
+		state.sim.save(state.rewind);
+		return state.rewind.getCount();
+	}
+	
+	//Advance a timing wheel one tick, running what is due, then schedule an event up to ten seconds ahead and cancel every other one
+	@State(Scope.Thread)
+	public static class WheelState {
+		TimingWheel wheel;
+		long tick;
+		int last;
+		
+		@Setup
+		public void setup() {
+			wheel = new TimingWheel(256, 1024);
+			tick = 0;
+			last = TimingWheel.NONE;
+		}
+	}
+	
+	@Benchmark
+	public int timingWheel(WheelState state) {
+		TimingWheel wheel = state.wheel;
+		long tick = ++state.tick;
+		wheel.advanceTo(tick);
+		int ran = 0;
+		while (wheel.poll() != TimingWheel.NONE)
+			ran++;
+		int handle = wheel.schedule(tick + 1 + (tick * 37 % 1000), 0);
+		if ((tick & 1) == 0) wheel.cancel(state.last);
+		state.last = handle;
+		return ran + wheel.getCount();
+	}
+	
+	//Build the player's sprite atlas from its frames
+	@Benchmark
+	public int spriteAtlasBuild() {
+		return new SpriteAtlas(Player.CHAR_WIDTH, Player.CHAR_HEIGHT).getImage().getWidth();
+	}
+	
+	//Every tick of one full close and open of the cave, the work that one tween per column used to do
+	@State(Scope.Thread)
+	public static class CycleState {
+		CaveCycle cycle;
+		
+		@Setup
+		public void setup() {
+			cycle = new CaveCycle();
+		}
+	}
+	
+	@Benchmark
+	public long closureCycle(CycleState state) {
+		CaveCycle cycle = state.cycle;
+		cycle.start(3.0f, 2.0f);
+		long total = 0;
+		for (int ms = 0; ms < 5000; ms += CaveSimulation.TICK_MS) {
+			cycle.update(CaveSimulation.TICK_MS);
+			total += (long) cycle.getClosure();
+		}
+		return total;
+	}
+	
+	//Draw the background, cave, and player into an offscreen image like the canvas renderer does
+	@State(Scope.Thread)
+	public static class FrameState {
+		SimSnapshot snapshot;
+		Player plr;
+		CaveCanvas canvas;
+		BufferedImage frame;
+		
+		@Setup
+		public void setup() {
+			CaveSimulation sim = newSimulation(false);
+			InputState input = new InputState();
+			input.setRight(true);
+			for (int i = 0; i < 100; i++)
+				sim.step(input);
+			snapshot = new SimSnapshot(sim.getColumns().getCapacity());
+			snapshot.copyFrom(sim, System.nanoTime());
+			plr = new Player(sim.getPlayerX(), sim.getPlayerY());
+			canvas = new CaveCanvas(new CaveBackground());
+			frame = Images.createCompatible(CaveSimulation.PANEL_WIDTH, CaveSimulation.PANEL_HEIGHT, Transparency.OPAQUE);
+		}
+	}
+	
+	@Benchmark
+	public int drawFrame(FrameState state) {
+		Graphics2D g = state.frame.createGraphics();
+		state.canvas.drawFrame(g, state.snapshot, state.plr, 0.5f);
+		g.dispose();
+		return state.frame.getRGB(0, 0);
+	}
+	
+	//Move and draw a full pool of particles, topping it up with debris as particles die
+	@State(Scope.Thread)
+	public static class ParticleState {
+		CaveEffects effects;
+		Particles particles;
+		Graphics2D g;
+		int edge;
+		
+		@Setup
+		public void setup() {
+			effects = new CaveEffects();
+			particles = effects.getParticles();
+			g = Images.createCompatible(CaveSimulation.PANEL_WIDTH, CaveSimulation.PANEL_HEIGHT, Transparency.OPAQUE).createGraphics();
+		}
+	}
+	
+	@Benchmark
+	public int particles(ParticleState state) {
+		Particles particles = state.particles;
+		while (particles.getCount() < particles.getCapacity() - 10) {
+			state.edge = (state.edge + 37) % CaveSimulation.PANEL_WIDTH;
+			state.effects.playerCrossedStep(state.edge, 200);
+		}
+		particles.update();
+		particles.draw(state.g, 0, 0.5f);
+		return particles.getCount();
+	}
+	
+	private static CaveSimulation newSimulation(boolean endless) {
+		CaveSimulation sim = new CaveSimulation(ReplayPlayer.NO_LISTENER, endless, SEED);
+		sim.setVerbose(false);
+		return sim;
+	}
+	
+	//Usage: Benchmarks before.csv after.csv, both saved by JMH with -rf csv
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.out.println("Usage: Benchmarks before.csv after.csv");
+			System.exit(2);
+		}
+		Map<String, double[]> before = load(args[0]), after = load(args[1]);
+		for (Map.Entry<String, double[]> result : after.entrySet()) {
+			double[] now = result.getValue();
+			String line = String.format(Locale.ROOT, "%-20s %14.1f ns/op  +- %.1f", result.getKey(), now[0], now[1]);
+			double[] old = before.get(result.getKey());
+			if (old != null) line += String.format(Locale.ROOT, "  (was %.1f, %+.1f%%)", old[0], (now[0] / old[0] - 1) * 100);
+			System.out.println(line);
+		}
+	}
+	
+	//Score and error of each benchmark in a JMH csv file, keyed by the benchmark's method name
+	private static Map<String, double[]> load(String path) throws IOException {
+		Map<String, double[]> results = new LinkedHashMap<>();
+		try (Scanner scanner = new Scanner(new File(path))) {
+			if (scanner.hasNextLine()) scanner.nextLine();
+			while (scanner.hasNextLine()) {
+				String[] parts = scanner.nextLine().replace("\"", "").split(",");
+				if (parts.length < 6) continue;
+				String name = parts[0].substring(parts[0].lastIndexOf('.') + 1);
+				results.put(name, new double[] {Double.parseDouble(parts[4]), parts[5].equals("NaN") ? 0 : Double.parseDouble(parts[5])});
+			}
+		}
+		return results;
+	}
+}
@@ -0,0 +1,246 @@
+/*
+ * Name: Jack Whitman
+ * Description: The RenderBenchmark class measures how long the game takes to draw a frame without a window, so rendering can be compared across Java2D pipelines and machines and checked for regressions on build machines. It plays scripted scenes through the canvas renderer's drawing code into an offscreen BufferedImage, and into a VolatileImage when there is a display, and prints the frames per second and frame time percentiles of each scene.
+ */
+package caveRunner;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Toolkit;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.Arrays;
+import java.util.Locale;
+
+public class RenderBenchmark {
+	//Constants
+	private final static long SEED = 42;
+	private final static String[] SCENES = {"staticCave", "closingCave", "runningPlayer", "loseScreen"};
+	private final static String[] TARGETS = {"buffered", "volatile"};
+	private final static float ALPHA = 0.5f;
+	
+	//Usage: RenderBenchmark [scene filter] [--frames n] [--warmup n] [--target buffered|volatile]
+	public static void main(String[] args) {
+		int frames = 2000, warmup = 500;
+		String filter = "", onlyTarget = null;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--frames")) frames = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--warmup")) warmup = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--target")) onlyTarget = args[++i];
+			else if (args[i].startsWith("--")) {
+				System.out.println("Usage: RenderBenchmark [scene filter] [--frames n] [--warmup n] [--target buffered|volatile]");
+				System.exit(2);
+			}
+			else filter = args[i];
+		}
+		if (onlyTarget != null && !Arrays.asList(TARGETS).contains(onlyTarget)) {
+			System.out.println("Unknown target " + onlyTarget + ", use buffered or volatile");
+			System.exit(2);
+		}
+		
+		printEnvironment();
+		System.out.printf(Locale.ROOT, "%-14s %-9s %9s %9s %9s %9s %9s%n", "scene", "target", "fps", "p50 us", "p90 us", "p99 us", "max us");
+		for (String target : TARGETS) {
+			if (onlyTarget != null && !onlyTarget.equals(target)) continue;
+			if (target.equals("volatile") && GraphicsEnvironment.isHeadless()) {
+				System.out.println("volatile images need a display, skipped while headless");
+				continue;
+			}
+			for (String name : SCENES) {
+				if (!name.contains(filter)) continue;
+				Scene scene = new Scene(name);
+				Target image = new Target(target);
+				for (int i = 0; i < warmup; i++)
+					drawFrame(scene, image);
+				long[] nanos = new long[frames];
+				for (int i = 0; i < frames; i++)
+					nanos[i] = drawFrame(scene, image);
+				report(name, target, nanos);
+			}
+		}
+	}
+	
+	//Step the scene, then draw and time one frame of it
+	private static long drawFrame(Scene scene, Target image) {
+		scene.next();
+		long start = System.nanoTime();
+		Graphics2D g = image.createGraphics();
+		scene.draw(g);
+		g.dispose();
+		image.finish();
+		return System.nanoTime() - start;
+	}
+	
+	//Print the frames per second of drawing alone and the frame time percentiles
+	private static void report(String name, String target, long[] nanos) {
+		long total = 0;
+		for (long n : nanos)
+			total += n;
+		Arrays.sort(nanos);
+		double fps = nanos.length * 1e9 / Math.max(total, 1);
+		System.out.printf(Locale.ROOT, "%-14s %-9s %9.1f %9.1f %9.1f %9.1f %9.1f%n", name, target, fps, percentile(nanos, 50), percentile(nanos, 90), percentile(nanos, 99), nanos[nanos.length - 1] / 1000.0);
+	}
+	
+	//Percentile of sorted timings in microseconds, p goes from 0 to 100
+	private static double percentile(long[] sorted, double p) {
+		return sorted[Math.min((int) (p / 100 * sorted.length), sorted.length - 1)] / 1000.0;
+	}
+	
+	//Print what the results depend on, the Java version, the machine, and the Java2D pipeline settings
+	private static void printEnvironment() {
+		StringBuilder pipeline = new StringBuilder();
+		for (String key : System.getProperties().stringPropertyNames())
+			if (key.startsWith("sun.java2d.")) pipeline.append(' ').append(key).append('=').append(System.getProperty(key));
+		System.out.println("Java " + System.getProperty("java.version") + " on " + System.getProperty("os.name") + " " + System.getProperty("os.arch") + ", " + Runtime.getRuntime().availableProcessors() + " cpus, " + (GraphicsEnvironment.isHeadless() ? "headless" : GraphicsEnvironment.getLocalGraphicsEnvironment().getClass().getSimpleName()));
+		System.out.println("Java2D options:" + (pipeline.length() > 0 ? pipeline : " none"));
+	}
+	
+	//An offscreen image frames are drawn into
+	private static class Target {
+		private BufferedImage buffered;
+		private VolatileImage volatileImage;
+		private GraphicsConfiguration config;
+		
+		Target(String kind) {
+			if (kind.equals("buffered")) {
+				buffered = Images.createCompatible(CaveSimulation.PANEL_WIDTH, CaveSimulation.PANEL_HEIGHT, Transparency.OPAQUE);
+				return;
+			}
+			config = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+			volatileImage = config.createCompatibleVolatileImage(CaveSimulation.PANEL_WIDTH, CaveSimulation.PANEL_HEIGHT);
+		}
+		
+		//Graphics for the next frame, making the volatile image again if it was lost
+		Graphics2D createGraphics() {
+			if (buffered != null) return buffered.createGraphics();
+			if (volatileImage.validate(config) == VolatileImage.IMAGE_INCOMPATIBLE)
+				volatileImage = config.createCompatibleVolatileImage(CaveSimulation.PANEL_WIDTH, CaveSimulation.PANEL_HEIGHT);
+			return volatileImage.createGraphics();
+		}
+		
+		//Wait for queued drawing to finish so it is counted in the frame that asked for it
+		void finish() {
+			if (volatileImage != null) Toolkit.getDefaultToolkit().sync();
+		}
+	}
+	
+	//A scripted game the frames are drawn from, stepped one tick per frame outside of the timing
+	private static class Scene implements SimulationListener {
+		private String name;
+		private CaveSimulation sim;
+		private SelfPlayBot bot;
+		private InputState input;
+		private SimSnapshot snapshot;
+		private SimEvents events;
+		private CaveEffects effects;
+		private RewindBuffer rewind;
+		private Player plr;
+		private Hud hud;
+		private CaveCanvas canvas;
+		
+		Scene(String name) {
+			this.name = name;
+			boolean endless = name.equals("runningPlayer");
+			sim = new CaveSimulation(this, endless, SEED);
+			sim.setVerbose(false);
+			bot = new SelfPlayBot(8);
+			input = new InputState();
+			snapshot = new SimSnapshot(sim.getColumns().getCapacity());
+			events = new SimEvents();
+			effects = new CaveEffects();
+			plr = new Player(sim.getPlayerX(), sim.getPlayerY());
+			hud = new Hud(sim.getScore(), sim.getLevel());
+			hud.setHighScore(0);
+			canvas = new CaveCanvas(new CaveBackground());
+			canvas.setParticles(effects.getParticles());
+			canvas.setHud(hud);
+			
+			//The player backs into the first column's gap and waits there while the cave closes, then goes back to the start of the closing
+			if (name.equals("closingCave")) {
+				input.setLeft(true);
+				while (!sim.isCaveClosing())
+					sim.step(input);
+				rewind = sim.createRewindBuffer(1);
+				sim.save(rewind);
+				restartClosing();
+			}
+			
+			//Play a game to its end and show the lose screen over it
+			if (name.equals("loseScreen")) {
+				while (!sim.isDead())
+					stepBot();
+				hud.setRewindAvailable(true);
+				hud.setLost(true);
+			}
+			events.clear();
+			snapshot.copyFrom(sim, 0);
+		}
+		
+		//Move the scene on one tick, nothing moves in the static cave and on the lose screen except the player's idle animation
+		void next() {
+			if (name.equals("closingCave")) {
+				sim.step(input);
+				if (sim.isDead() || !sim.isCaveClosing() && sim.getClosure(1) == 0) restartClosing();
+			} else if (name.equals("runningPlayer")) {
+				stepBot();
+				if (sim.isDead()) {
+					sim.restart(SEED);
+					events.clear();
+					effects.reset();
+				}
+			}
+			snapshot.copyFrom(sim, 0);
+			events.drainTo(effects, snapshot.getTick());
+			effects.tick(snapshot);
+			if (snapshot.getAnimation() != CaveSimulation.NO_ANIMATION) plr.animate(snapshot.getAnimation(), snapshot.isFacingBack());
+			plr.advance(CaveSimulation.TICK_MS * 1_000_000L);
+		}
+		
+		//Go back to the start of the closing, dropping queued events since they are from later ticks than the restored one, and start the dust again
+		private void restartClosing() {
+			sim.restore(rewind, 0);
+			events.clear();
+			effects.reset();
+			effects.caveClosing();
+		}
+		
+		private void stepBot() {
+			InputState keys = bot.decide(sim);
+			sim.step(keys);
+			keys.clearTaps();
+		}
+		
+		//Draw the frame the way the game panel's render does
+		void draw(Graphics2D g) {
+			int cameraX = snapshot.getCameraX(ALPHA);
+			hud.update(snapshot.getScore(), snapshot.getLevel());
+			plr.drawAt(snapshot.getPlayerX(ALPHA) - cameraX, snapshot.getPlayerY(ALPHA));
+			canvas.drawFrame(g, snapshot, plr, ALPHA);
+		}
+		
+		//Simulation events, passed on to the effects like the game panel does
+		public void scoreIncreased() {}
+		public void playerDied() {}
+		
+		public void caveRegenerated() {
+			events.offer(sim.getTick(), SimEvents.REGENERATED, 0, 0, 0);
+		}
+		
+		public void caveClosing() {
+			events.offer(sim.getTick(), SimEvents.CAVE_CLOSING, 0, 0, 0);
+		}
+		
+		public void caveOpening() {
+			events.offer(sim.getTick(), SimEvents.CAVE_OPENING, 0, 0, 0);
+		}
+		
+		public void playerLanded(int x, int y, int speed) {
+			events.offer(sim.getTick(), SimEvents.LANDED, x, y, speed);
+		}
+		
+		public void playerCrossedStep(int x, int y) {
+			events.offer(sim.getTick(), SimEvents.STEP, x, y, 0);
+		}
+	}
+}
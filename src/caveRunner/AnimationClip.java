@@ -0,0 +1,50 @@
+/*
+ * Name: Jack Whitman
+ * Description: The AnimationClip class is one animation from the animation manifest: its frame images, how long each frame is shown, and whether it loops or stops on its last frame. The frame to show is worked out from how long the clip has been playing, so animations run at the same speed whatever the simulation or frame rate is.
+ */
+package caveRunner;
+
+public class AnimationClip {
+	//Instance vars
+	private String name, framePattern;
+	private int[] frameMs;
+	private int totalMs;
+	private boolean loop;
+	
+	public AnimationClip(String name, String framePattern, int[] frameMs, boolean loop) {
+		this.name = name;
+		this.framePattern = framePattern;
+		this.frameMs = frameMs;
+		this.loop = loop;
+		for (int ms : frameMs)
+			totalMs += ms;
+	}
+	
+	//Frame shown after the clip has played for ms milliseconds
+	public int frameAt(long ms) {
+		if (loop) ms %= totalMs;
+		for (int i = 0; i < frameMs.length; i++) {
+			ms -= frameMs[i];
+			if (ms < 0) return i;
+		}
+		return frameMs.length - 1;
+	}
+	
+	//Image file of a frame
+	public String getFramePath(int frame) {
+		return String.format(framePattern, frame);
+	}
+	
+	//Getter methods
+	public String getName() {
+		return name;
+	}
+	
+	public int getFrameCount() {
+		return frameMs.length;
+	}
+	
+	public boolean isLooping() {
+		return loop;
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Name: Jack Whitman
+ * Description: The AnimationSet class loads the animation clips listed in the animation manifest. Each line names a clip and gives its frame files, frame durations, and whether it loops, so a new animation only needs new images and a new line. Clips are looked up by index, and names are only turned into indexes when the game starts.
+ */
+package caveRunner;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+
+public class AnimationSet {
+	//Constants
+	public final static String MANIFEST = "assets/animations.txt";
+	
+	//Instance vars
+	private AnimationClip[] clips;
+	
+	private AnimationSet(AnimationClip[] clips) {
+		this.clips = clips;
+	}
+	
+	//Load the clips in the manifest, or no clips if it cannot be read
+	public static AnimationSet load(String path) {
+		try {
+			return read(path);
+		} catch (IOException e) {
+			System.out.println("File error occured. Animations from " + path + " will not be shown: " + e.getMessage());
+			return new AnimationSet(new AnimationClip[0]);
+		}
+	}
+	
+	//Read a manifest with one clip per line as name, frame file pattern, frame count, durations, and loop or clamp
+	public static AnimationSet read(String path) throws IOException {
+		ArrayList<AnimationClip> clips = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) continue;
+				
+				String[] parts = line.split("\\s+");
+				if (parts.length != 5) throw new IOException(path + " line " + lineNumber + " needs a name, frame files, frame count, durations, and loop or clamp");
+				if (!parts[4].equals("loop") && !parts[4].equals("clamp")) throw new IOException(path + " line " + lineNumber + " must end with loop or clamp");
+				try {
+					int frameCount = Integer.parseInt(parts[2]);
+					if (frameCount <= 0) throw new IOException(path + " line " + lineNumber + " needs at least one frame");
+					clips.add(new AnimationClip(parts[0], parts[1], parseDurations(parts[3], frameCount), parts[4].equals("loop")));
+				} catch (NumberFormatException e) {
+					throw new IOException(path + " line " + lineNumber + " has a bad number: " + e.getMessage());
+				} catch (IllegalArgumentException e) {
+					throw new IOException(path + " line " + lineNumber + " " + e.getMessage());
+				}
+			}
+		}
+		return new AnimationSet(clips.toArray(new AnimationClip[0]));
+	}
+	
+	//One duration for every frame, or a comma separated duration for each frame
+	private static int[] parseDurations(String text, int frameCount) {
+		String[] parts = text.split(",");
+		if (parts.length != 1 && parts.length != frameCount) throw new IllegalArgumentException("has " + parts.length + " durations for " + frameCount + " frames");
+		int[] frameMs = new int[frameCount];
+		for (int i = 0; i < frameCount; i++) {
+			frameMs[i] = Integer.parseInt(parts[parts.length == 1 ? 0 : i]);
+			if (frameMs[i] <= 0) throw new IllegalArgumentException("has a duration that is not positive");
+		}
+		return frameMs;
+	}
+	
+	//Index of the clip called name, or -1 if there is none
+	public int indexOf(String name) {
+		for (int i = 0; i < clips.length; i++)
+			if (clips[i].getName().equals(name)) return i;
+		return -1;
+	}
+	
+	//Getter methods
+	public int getClipCount() {
+		return clips.length;
+	}
+	
+	public AnimationClip getClip(int index) {
+		return clips[index];
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Name: Jack Whitman
+ * Description: The AssetPack class reads and writes the asset pack, one file holding every sprite and background layer already decoded to ARGB pixels at the size the game draws it. An index at the start names each image with its size, the size and date of the file it came from, and where its pixels are. At runtime the file is memory-mapped, so opening it reads only the index and each image's pixels are copied straight out of the mapping.
+ */
+package caveRunner;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+public class AssetPack {
+	//Constants
+	private final static int MAGIC = 0x4352504B, VERSION = 1;
+	
+	//Where one image is in the pack
+	private static class Entry {
+		String key;
+		int width, height;
+		long sourceLength, sourceModified;
+		int offset;
+		int[] pixels;
+	}
+	
+	//Instance vars
+	private ByteBuffer data;
+	private HashMap<String, Entry> entries;
+	
+	private AssetPack(ByteBuffer data, HashMap<String, Entry> entries) {
+		this.data = data;
+		this.entries = entries;
+	}
+	
+	//Name of an image of path scaled to width by height
+	public static String key(String path, int width, int height) {
+		return path + "@" + width + "x" + height;
+	}
+	
+	//Map a pack file and read its index
+	public static AssetPack open(String path) throws IOException {
+		MappedByteBuffer map;
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		ByteBuffer data = map.order(ByteOrder.LITTLE_ENDIAN);
+		try {
+			return readIndex(data, path);
+		} catch (BufferUnderflowException e) {
+			throw new IOException(path + " is cut off");
+		}
+	}
+	
+	//Read the index at the start of the pack
+	private static AssetPack readIndex(ByteBuffer data, String path) throws IOException {
+		if (data.getInt() != MAGIC) throw new IOException(path + " is not an asset pack");
+		int version = data.getInt();
+		if (version != VERSION) throw new IOException(path + " has unknown asset pack version " + version);
+		
+		int count = data.getInt();
+		HashMap<String, Entry> entries = new HashMap<>();
+		for (int i = 0; i < count; i++) {
+			Entry entry = new Entry();
+			byte[] name = new byte[data.getShort()];
+			data.get(name);
+			entry.key = new String(name, StandardCharsets.UTF_8);
+			entry.width = data.getInt();
+			entry.height = data.getInt();
+			entry.sourceLength = data.getLong();
+			entry.sourceModified = data.getLong();
+			entry.offset = data.getInt();
+			if ((long) entry.offset + 4L * entry.width * entry.height > data.capacity()) throw new IOException(path + " is cut off");
+			entries.put(entry.key, entry);
+		}
+		return new AssetPack(data, entries);
+	}
+	
+	//Pixels of an image as ARGB ints, or null if the pack does not have it or the file it came from has changed
+	public IntBuffer getPixels(String path, int width, int height) {
+		Entry entry = entries.get(key(path, width, height));
+		if (entry == null) return null;
+		File source = new File(path);
+		if (source.length() != entry.sourceLength || source.lastModified() != entry.sourceModified) {
+			System.out.println("Asset pack is older than " + path + ", rebuild it with AssetPacker");
+			return null;
+		}
+		ByteBuffer bytes = data.duplicate();
+		bytes.position(entry.offset);
+		IntBuffer pixels = bytes.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+		pixels.limit(width * height);
+		return pixels;
+	}
+	
+	//Collects images and writes them out as a pack
+	public static class Builder {
+		private ArrayList<Entry> added = new ArrayList<>();
+		
+		//Add an image of path at its final size
+		public void add(String path, BufferedImage image) {
+			Entry entry = new Entry();
+			entry.width = image.getWidth();
+			entry.height = image.getHeight();
+			entry.key = key(path, entry.width, entry.height);
+			File source = new File(path);
+			entry.sourceLength = source.length();
+			entry.sourceModified = source.lastModified();
+			entry.pixels = image.getRGB(0, 0, entry.width, entry.height, null, 0, entry.width);
+			added.add(entry);
+		}
+		
+		//Write the pack to a temporary file and rename it into place, so a running game never maps half a pack
+		public void write(String path) throws IOException {
+			//Lay out the index, then every image's pixels after it on four byte boundaries
+			int indexSize = 12;
+			for (Entry entry : added)
+				indexSize += 2 + entry.key.getBytes(StandardCharsets.UTF_8).length + 4 + 4 + 8 + 8 + 4;
+			int offset = (indexSize + 3) & ~3;
+			for (Entry entry : added) {
+				entry.offset = offset;
+				offset += 4 * entry.pixels.length;
+			}
+			
+			ByteBuffer out = ByteBuffer.allocate(offset).order(ByteOrder.LITTLE_ENDIAN);
+			out.putInt(MAGIC).putInt(VERSION).putInt(added.size());
+			for (Entry entry : added) {
+				byte[] name = entry.key.getBytes(StandardCharsets.UTF_8);
+				out.putShort((short) name.length).put(name);
+				out.putInt(entry.width).putInt(entry.height).putLong(entry.sourceLength).putLong(entry.sourceModified).putInt(entry.offset);
+			}
+			for (Entry entry : added) {
+				out.position(entry.offset);
+				out.asIntBuffer().put(entry.pixels);
+			}
+			out.position(0);
+			
+			Path temp = Paths.get(path + ".tmp");
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				while (out.hasRemaining())
+					channel.write(out);
+			}
+			Files.move(temp, Paths.get(path), StandardCopyOption.REPLACE_EXISTING);
+		}
+		
+		public int getCount() {
+			return added.size();
+		}
+	}
+}
@@ -0,0 +1,20 @@
+/*
+ * Name: Jack Whitman
+ * Description: The AssetPacker class builds the asset pack. It loads the sprite atlas and background the same way the game does, records every scaled image on the way, and writes them all to one file the game maps at startup. Run it again after changing any image in assets.
+ */
+package caveRunner;
+import java.io.File;
+import java.io.IOException;
+
+public class AssetPacker {
+	//Build the pack, the first argument is where to write it
+	public static void main(String[] args) throws IOException {
+		String path = args.length > 0 ? args[0] : Images.PACK_FILE;
+		AssetPack.Builder builder = new AssetPack.Builder();
+		Images.recordInto(builder);
+		new SpriteAtlas(Player.CHAR_WIDTH, Player.CHAR_HEIGHT);
+		new CaveBackground();
+		builder.write(path);
+		System.out.println("Packed " + builder.getCount() + " images into " + path + " (" + new File(path).length() / 1024 + " KB)");
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Name: Jack Whitman
+ * Description: The CaveBackground class decodes the background layers once, scales them to the size of the cave, and keeps them in display-compatible images. It draws them either as one pre-composited image or, in parallax mode, as layers that scroll at different speeds.
+ */
+package caveRunner;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+public class CaveBackground {
+	//Constants
+	public final static boolean PARALLAX = Boolean.getBoolean("caverunner.parallax");
+	private final static int WIDTH = CaveSimulation.PANEL_WIDTH, HEIGHT = CaveSimulation.PANEL_HEIGHT;
+	private final static String[] LAYER_FILES = {"assets/purple_L1.png", "assets/purple_L2.png", "assets/purple_L3.png", "assets/purple_L4.png"};
+	private final static float[] LAYER_SPEEDS = {0.0f, 0.15f, 0.4f, 0.8f};
+	
+	//Instance vars
+	private BufferedImage[] layers;
+	private BufferedImage composite;
+	
+	public CaveBackground() {
+		//Load every layer once, already scaled to the cave
+		layers = new BufferedImage[LAYER_FILES.length];
+		for (int i = 0; i < layers.length; i++) {
+			int transparency = i == 0 ? Transparency.OPAQUE : Transparency.TRANSLUCENT;
+			layers[i] = Images.loadScaled(LAYER_FILES[i], WIDTH, HEIGHT, RenderingHints.VALUE_INTERPOLATION_BILINEAR, transparency);
+			if (layers[i] == null) layers[i] = Images.createCompatible(WIDTH, HEIGHT, transparency);
+		}
+		
+		//Composite the layers into one image for when nothing moves
+		composite = Images.createCompatible(WIDTH, HEIGHT, Transparency.OPAQUE);
+		Graphics2D g = composite.createGraphics();
+		for (BufferedImage layer : layers)
+			g.drawImage(layer, 0, 0, null);
+		g.dispose();
+	}
+	
+	//Draw the background with its top left corner at x, y
+	public void draw(Graphics g, int x, int y, float scroll) {
+		if (!PARALLAX) {
+			g.drawImage(composite, x, y, null);
+			return;
+		}
+		
+		//Blit each layer twice so it wraps around while scrolling
+		Shape oldClip = g.getClip();
+		g.clipRect(x, y, WIDTH, HEIGHT);
+		for (int i = 0; i < layers.length; i++) {
+			int offset = Math.floorMod((int) (scroll * LAYER_SPEEDS[i]), WIDTH);
+			g.drawImage(layers[i], x - offset, y, null);
+			if (offset != 0) g.drawImage(layers[i], x - offset + WIDTH, y, null);
+		}
+		g.setClip(oldClip);
+	}
+}
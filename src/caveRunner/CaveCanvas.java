@@ -0,0 +1,81 @@
+/*
+ * Name: Jack Whitman
+ * Description: The CaveCanvas class is an actively rendered alternative to the cave JPanels and player JLabel. It draws the background, cave columns, player sprite, particles, and HUD from a snapshot of the simulation's state in one pass onto a BufferStrategy back buffer.
+ */
+package caveRunner;
+import java.awt.Canvas;
+import java.awt.Graphics2D;
+import java.awt.image.BufferStrategy;
+
+@SuppressWarnings("serial")
+public class CaveCanvas extends Canvas {
+	
+	//Instance vars
+	private CaveBackground background;
+	private BufferStrategy strategy;
+	private Particles particles;
+	private Hud hud;
+	private DevOverlay overlay;
+	
+	public CaveCanvas(CaveBackground background) {
+		setIgnoreRepaint(true);
+		setFocusable(false);
+		setBounds(0, 0, CaveSimulation.PANEL_WIDTH, CaveSimulation.PANEL_HEIGHT);
+		this.background = background;
+	}
+	
+	//Render one frame between the last two ticks, returns false if the canvas is not on screen yet
+	public boolean render(SimSnapshot sim, Player plr, float alpha) {
+		if (!isDisplayable()) return false;
+		if (strategy == null) {
+			createBufferStrategy(2);
+			strategy = getBufferStrategy();
+		}
+		
+		//Keep drawing until the back buffer was not lost
+		do {
+			do {
+				Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+				drawFrame(g, sim, plr, alpha);
+				g.dispose();
+			} while (strategy.contentsRestored());
+			strategy.show();
+		} while (strategy.contentsLost());
+		return true;
+	}
+	
+	//Draw background, blocks, and player
+	void drawFrame(Graphics2D g, SimSnapshot sim, Player plr, float alpha) {
+		background.draw(g, 0, 0, sim.getDistance(alpha));
+		
+		CaveColumns columns = sim.getColumns();
+		int cameraX = sim.getCameraX(alpha), closure = Math.round(sim.getClosure(alpha));
+		for (int i = columns.getFirst(); i < columns.getEnd(); i++) {
+			int x = columns.getX(i) - cameraX;
+			if (x + CaveColumns.BLOCK_WIDTH <= 0 || x >= CaveSimulation.PANEL_WIDTH) continue;
+			g.setColor(CaveRunnerGamePanel.blockColor(columns, i));
+			g.fillRect(x, 0, CaveColumns.BLOCK_WIDTH, columns.getCeilingY(i) + closure);
+			g.fillRect(x, columns.getFloorY(i), CaveColumns.BLOCK_WIDTH, CaveSimulation.PANEL_HEIGHT - columns.getTopHeight(i));
+		}
+		
+		plr.drawFrame(g, plr.getX(), plr.getY());
+		if (particles != null) particles.draw(g, cameraX, alpha);
+		if (hud != null) hud.draw(g);
+		if (overlay != null) overlay.draw(g);
+	}
+	
+	//Particles to draw over the cave and player
+	public void setParticles(Particles particles) {
+		this.particles = particles;
+	}
+	
+	//HUD to draw over each frame
+	public void setHud(Hud hud) {
+		this.hud = hud;
+	}
+	
+	//Developer overlay to draw over each frame, lightweight components cannot be seen over a canvas
+	public void setOverlay(DevOverlay overlay) {
+		this.overlay = overlay;
+	}
+}
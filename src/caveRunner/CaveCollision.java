@@ -0,0 +1,82 @@
+/*
+ * Name: Jack Whitman
+ * Description: The CaveCollision class keeps the player inside the cave by reading the floor and ceiling of each column straight from the column data. Overlaps are fixed in one calculation and moves are swept, so the player stops at a floor, ceiling, or step however far they move in one tick instead of passing through it.
+ */
+package caveRunner;
+
+public class CaveCollision {
+	//Instance vars
+	private CaveColumns columns;
+	
+	public CaveCollision(CaveColumns columns) {
+		this.columns = columns;
+	}
+	
+	//Y coordinate of the ceiling of a column, including how far the cave has closed
+	public float getCeilingY(int column, float closure) {
+		return columns.getCeilingY(column) + closure;
+	}
+	
+	//Y coordinate the player's top is at when standing on a column
+	public int getStandingY(int column) {
+		return columns.getFloorY(column) - Player.CHAR_HEIGHT;
+	}
+	
+	//Move the player dy pixels, stopping on the floor or under the ceiling if the move crosses it
+	public int sweepY(int column, float closure, int y, int dy) {
+		int target = y + dy;
+		if (!columns.has(column)) return target;
+		
+		//Land on the floor
+		int standingY = getStandingY(column);
+		if (dy > 0 && y <= standingY && target > standingY) return standingY;
+		
+		//Hit the ceiling
+		int ceilingY = (int)Math.ceil(getCeilingY(column, closure));
+		if (dy < 0 && y >= ceilingY && target < ceilingY) return ceilingY;
+		return target;
+	}
+	
+	//Lift the player out of the floor if they are less than a step into it
+	public int resolveFloor(int column, int y) {
+		int depth = y - getStandingY(column);
+		return depth > 0 && depth < CaveColumns.JUMP_FALL_HEIGHT ? y - depth : y;
+	}
+	
+	//Push the player down out of the ceiling
+	public int resolveCeiling(int column, float closure, int y) {
+		return Math.max(y, (int)Math.ceil(getCeilingY(column, closure)));
+	}
+	
+	//Move the player's centre dx pixels right, stopping half a block before a jump block that is too high to walk onto
+	public int sweepRight(int centerX, int y, int dx) {
+		int target = centerX + dx;
+		for (int column = Math.floorDiv(centerX, CaveColumns.BLOCK_WIDTH); middle(column) < target; column++)
+			if (blocksRight(column + 1, y)) return Math.max(centerX, middle(column));
+		return target;
+	}
+	
+	//Move the player's centre dx pixels left, stopping half a block into a fall block so they cannot walk back up it
+	public int sweepLeft(int centerX, int dx) {
+		int target = centerX - dx;
+		for (int column = Math.floorDiv(centerX, CaveColumns.BLOCK_WIDTH); middle(column) > target; column--)
+			if (blocksLeft(column)) return Math.min(centerX, middle(column));
+		return target;
+	}
+	
+	//A jump block stops the player if its floor is above their feet, a cut off one only if it is over 50 pixels above
+	private boolean blocksRight(int column, int y) {
+		if (!columns.has(column) || !columns.isJumpBlock(column)) return false;
+		int rise = y - getStandingY(column);
+		return columns.isCutoffJumpBlock(column) ? rise > 50 : rise > 0;
+	}
+	
+	private boolean blocksLeft(int column) {
+		return columns.has(column) && columns.isFallBlock(column);
+	}
+	
+	//X coordinate of the middle of a column
+	private int middle(int column) {
+		return column * CaveColumns.BLOCK_WIDTH + CaveColumns.BLOCK_WIDTH / 2;
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Name: Jack Whitman
+ * Description: The CaveColumns class stores the vertical pillars of the cave in a ring buffer of primitive arrays, one entry per column. Columns are addressed by their absolute index in the world, new ones are added after the last one, and the oldest ones are dropped once the buffer is full, so the cave can scroll forever with a fixed amount of memory. It provides functionality for gaps, jump blocks, and fall blocks.
+ */
+package caveRunner;
+
+public class CaveColumns {
+	//Constants
+	public static final int BLOCK_WIDTH = 40,  GAP = Player.CHAR_HEIGHT + 20, SEPARATION = GAP * 2, JUMP_FALL_HEIGHT = 100;
+	
+	//Flag bits
+	static final byte GAP_FLAG = 1, JUMP_FLAG = 2, FALL_FLAG = 4, CUTOFF_FLAG = 8;
+	
+	//Column data, indexed by absolute column index modulo capacity
+	private int[] topHeight;
+	private byte[] flags;
+	
+	//Instance vars
+	private int capacity, first, end;
+	
+	public CaveColumns(int capacity) {
+		this.capacity = capacity;
+		topHeight = new int[capacity];
+		flags = new byte[capacity];
+	}
+	
+	//Throw away every column and make column 0 the first block
+	public void reset(int firstTopHeight, byte firstFlags) {
+		first = 0;
+		end = 1;
+		topHeight[0] = firstTopHeight;
+		flags[0] = firstFlags;
+	}
+	
+	//Add a block after the last block, dropping the oldest block if the buffer is full
+	public void append(int height, byte flag) {
+		if (end - first == capacity) first++;
+		int next = slot(end);
+		end++;
+		topHeight[next] = height;
+		flags[next] = flag;
+	}
+	
+	//Copy every column from other, which must have the same capacity
+	public void copyFrom(CaveColumns other) {
+		System.arraycopy(other.topHeight, 0, topHeight, 0, capacity);
+		System.arraycopy(other.flags, 0, flags, 0, capacity);
+		first = other.first;
+		end = other.end;
+	}
+	
+	//Save every column to rewind, each one packed into one int with its height above its flags
+	public void save(RewindBuffer rewind) {
+		rewind.putInt(first);
+		rewind.putInt(end);
+		for (int i = first; i < end; i++) {
+			int s = slot(i);
+			rewind.putInt(topHeight[s] << 8 | flags[s] & 0xFF);
+		}
+	}
+	
+	//Load the columns saved by save
+	public void restore(RewindBuffer rewind) {
+		first = rewind.getInt();
+		end = rewind.getInt();
+		for (int i = first; i < end; i++) {
+			int s = slot(i), packed = rewind.getInt();
+			topHeight[s] = packed >> 8;
+			flags[s] = (byte) packed;
+		}
+	}
+	
+	//Ints save writes at most
+	public int getSavedInts() {
+		return capacity + 2;
+	}
+	
+	//Position of a column in the arrays
+	private int slot(int column) {
+		return Math.floorMod(column, capacity);
+	}
+	
+	//Getter methods
+	public boolean has(int column) {
+		return column >= first && column < end;
+	}
+	
+	public int getFirst() {
+		return first;
+	}
+	
+	public int getEnd() {
+		return end;
+	}
+	
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	public int getX(int column) {
+		return column * BLOCK_WIDTH;
+	}
+	
+	public boolean isJumpBlock(int column) {
+		return (flags[slot(column)] & JUMP_FLAG) != 0;
+	}
+	
+	public boolean isCutoffJumpBlock(int column) {
+		return (flags[slot(column)] & CUTOFF_FLAG) != 0;
+	}
+	
+	public boolean isFallBlock(int column) {
+		return (flags[slot(column)] & FALL_FLAG) != 0;
+	}
+	
+	public boolean isGap(int column) {
+		return (flags[slot(column)] & GAP_FLAG) != 0;
+	}
+	
+	public int getTopHeight(int column) {
+		return topHeight[slot(column)];
+	}
+	
+	//Y coordinate of the ceiling when the cave is fully open, gaps reach higher
+	public int getCeilingY(int column) {
+		int i = slot(column);
+		return (flags[i] & GAP_FLAG) != 0 ? topHeight[i] - GAP : topHeight[i];
+	}
+	
+	//Y coordinate of the floor the player stands on
+	public int getFloorY(int column) {
+		return topHeight[slot(column)] + SEPARATION;
+	}
+
+}
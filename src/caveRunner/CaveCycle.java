@@ -0,0 +1,87 @@
+/*
+ * Name: Jack Whitman
+ * Description: The CaveCycle class works out how far the cave has closed as one function of the time since the cave started closing. The cave closes with quadratic ease-out, then opens again with quadratic ease-in-out, and every column reads the same value.
+ */
+package caveRunner;
+
+public class CaveCycle {
+	//Instance vars
+	private float closeTime, openTime;
+	private int elapsedMs;
+	private boolean active;
+	
+	//Start closing the cave, closeTime and openTime are in seconds
+	public void start(float closeTime, float openTime) {
+		this.closeTime = closeTime;
+		this.openTime = openTime;
+		elapsedMs = 0;
+		active = true;
+	}
+	
+	//Stop the cycle with the cave fully open
+	public void reset() {
+		active = false;
+		elapsedMs = 0;
+	}
+	
+	//Advance the cycle, it ends once the cave is open again
+	public void update(int ms) {
+		if (!active) return;
+		elapsedMs += ms;
+		if (elapsedMs >= (closeTime + openTime) * 1000) active = false;
+	}
+	
+	//Save the cycle to rewind
+	public void save(RewindBuffer rewind) {
+		rewind.putFloat(closeTime);
+		rewind.putFloat(openTime);
+		rewind.putInt(elapsedMs);
+		rewind.putBoolean(active);
+	}
+	
+	public void restore(RewindBuffer rewind) {
+		closeTime = rewind.getFloat();
+		openTime = rewind.getFloat();
+		elapsedMs = rewind.getInt();
+		active = rewind.getBoolean();
+	}
+	
+	//Updates of ms each until the cave is closed, 0 if it already is
+	public int getTicksUntilClosed(int ms) {
+		int closeMs = (int) Math.ceil(closeTime * 1000);
+		return Math.max(0, -Math.floorDiv(elapsedMs - closeMs, ms));
+	}
+	
+	//How far the cave has closed, from 0 when open to CaveColumns.SEPARATION when closed
+	public float getClosure() {
+		return active ? closureAt(elapsedMs / 1000.0f, closeTime, openTime) : 0;
+	}
+	
+	//Closure at time t seconds into a cycle
+	public static float closureAt(float t, float closeTime, float openTime) {
+		if (t <= 0) return 0;
+		
+		//Close with quadratic ease-out
+		if (t < closeTime) {
+			float p = t / closeTime;
+			return CaveColumns.SEPARATION * p * (2 - p);
+		}
+		
+		//Open with quadratic ease-in-out
+		t -= closeTime;
+		if (t >= openTime) return 0;
+		float p = t / openTime;
+		float eased = p < 0.5f ? 2 * p * p : 1 - 2 * (1 - p) * (1 - p);
+		return CaveColumns.SEPARATION * (1 - eased);
+	}
+	
+	//Getter methods
+	public boolean isActive() {
+		return active;
+	}
+	
+	//The cave finished closing and has not opened yet
+	public boolean isClosed() {
+		return active && elapsedMs >= closeTime * 1000;
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Name: Jack Whitman
+ * Description: The CaveEffects class turns simulation events into particles: dust falls from the ceiling while the cave closes, debris breaks off the edge of a step when the player crosses it, and a puff of dust rises where the player lands. It only spawns into a fixed pool of Particles and uses its own random numbers, so effects never allocate during play and never change the simulation.
+ */
+package caveRunner;
+
+public class CaveEffects {
+	//Constants
+	public final static int CAPACITY = 4096;
+	private final static int DUST_PER_TICK = 6, DEBRIS_COUNT = 10, MIN_LANDING_SPEED = 3;
+	
+	//Instance vars
+	private Particles particles;
+	private boolean dusting;
+	private int random;
+	
+	public CaveEffects() {
+		particles = new Particles(CAPACITY);
+		random = 0x2545F491;
+	}
+	
+	//Start and stop dropping dust, connected to the cave closing and opening
+	public void caveClosing() {
+		dusting = true;
+	}
+	
+	public void caveOpening() {
+		dusting = false;
+	}
+	
+	//Remove every particle and stop dust, for a new game or a new screen of cave
+	public void reset() {
+		dusting = false;
+		particles.clear();
+	}
+	
+	//Advance the effects one step, sim is the latest step the renderer has
+	public void tick(SimSnapshot sim) {
+		if (dusting) dropDust(sim);
+		particles.update();
+	}
+	
+	//Drop dust from the ceiling of random columns in view
+	private void dropDust(SimSnapshot sim) {
+		CaveColumns columns = sim.getColumns();
+		float closure = sim.getClosure(1);
+		int cameraX = sim.getCameraX(1);
+		for (int i = 0; i < DUST_PER_TICK; i++) {
+			float px = cameraX + nextFloat() * CaveSimulation.PANEL_WIDTH;
+			int column = (int) px / CaveColumns.BLOCK_WIDTH;
+			if (!columns.has(column)) continue;
+			float ceilingY = columns.getCeilingY(column) + closure;
+			particles.spawn(Particles.DUST, px, ceilingY, (nextFloat() - 0.5f) * 0.3f, nextFloat() * 0.5f, 60 + (int) (nextFloat() * 90));
+		}
+	}
+	
+	//Break debris off the edge of a step, x is the edge and y is the top of the higher floor
+	public void playerCrossedStep(int x, int y) {
+		for (int i = 0; i < DEBRIS_COUNT; i++)
+			particles.spawn(Particles.DEBRIS, x + (nextFloat() - 0.5f) * 6, y + nextFloat() * 4, (nextFloat() - 0.5f) * 2.5f, -nextFloat() * 2.5f, 30 + (int) (nextFloat() * 30));
+	}
+	
+	//Puff dust out to both sides of where the player landed, more for a harder landing
+	public void playerLanded(int x, int y, int speed) {
+		if (speed < MIN_LANDING_SPEED) return;
+		int puffs = Math.min(speed * 2, 30);
+		for (int i = 0; i < puffs; i++) {
+			float side = i % 2 == 0 ? 1 : -1;
+			particles.spawn(Particles.PUFF, x + side * nextFloat() * 20, y - nextFloat() * 3, side * (0.5f + nextFloat() * 1.5f), -nextFloat() * 0.6f, 20 + (int) (nextFloat() * 25));
+		}
+	}
+	
+	//Random number from 0 to 1 from a xorshift generator
+	private float nextFloat() {
+		random ^= random << 13;
+		random ^= random >>> 17;
+		random ^= random << 5;
+		return (random >>> 8) * 0x1.0p-24f;
+	}
+	
+	//Getter methods
+	public Particles getParticles() {
+		return particles;
+	}
+}
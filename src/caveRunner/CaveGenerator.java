@@ -0,0 +1,110 @@
+/*
+ * Name: Jack Whitman
+ * Description: The CaveGenerator class decides what each new cave column looks like. It draws from its own seeded SplitMix64 random source, so the same seed always builds the same course, and picks a normal column's height straight from the allowed range so every column takes the same small amount of work.
+ */
+package caveRunner;
+
+public class CaveGenerator {
+	//Constants
+	private static final double GAP_CHANCE = 0.1, JUMP_FALL_CHANCE = 0.1;
+	private static final int TOLERANCE = CaveColumns.GAP / 3, TOP_BOTTOM_DISTANCE = 20;
+	private static final int MIN_HEIGHT = TOP_BOTTOM_DISTANCE, MAX_HEIGHT = CaveSimulation.PANEL_HEIGHT - CaveColumns.SEPARATION - TOP_BOTTOM_DISTANCE;
+	private static final int FIRST_HEIGHT = CaveSimulation.PANEL_HEIGHT / 2 - CaveColumns.GAP;
+	
+	//Instance vars
+	private long seed, state;
+	private int blocksSinceLastGap;
+	
+	public CaveGenerator(long seed) {
+		this.seed = state = seed;
+	}
+	
+	//Throw away every column and create the first block at column 0
+	public void reset(CaveColumns columns, boolean isFirstGap) {
+		blocksSinceLastGap = 8;
+		columns.reset(FIRST_HEIGHT, isFirstGap ? CaveColumns.GAP_FLAG : 0);
+	}
+	
+	//Create a block off of the last block in columns
+	public void generateNext(CaveColumns columns) {
+		int prevTopHeight = columns.getTopHeight(columns.getEnd() - 1);
+		byte flag = 0;
+		
+		//Determine if this block is a gap block
+		boolean isGap;
+		if (blocksSinceLastGap < 10) {
+			isGap = nextDouble() < GAP_CHANCE;
+		} else {
+			isGap = true;
+		}
+		
+		//Reset gap counter
+		if (isGap) {
+			blocksSinceLastGap = 0;
+			flag |= CaveColumns.GAP_FLAG;
+		} else {
+			blocksSinceLastGap++;
+		}
+		
+		//Decide if the block is a jump or fall block
+		boolean isJumpBlock = nextDouble() < JUMP_FALL_CHANCE;
+		boolean isFallBlock = isJumpBlock ? false : nextDouble() < JUMP_FALL_CHANCE;
+		
+		//Set top heights for jump and fall blocks
+		int height;
+		if (isJumpBlock) {
+			flag |= CaveColumns.JUMP_FLAG;
+			height = prevTopHeight - CaveColumns.JUMP_FALL_HEIGHT;
+			if (height < 0) {
+				flag |= CaveColumns.CUTOFF_FLAG;
+				height = 0;
+			}
+		} else if (isFallBlock) {
+			flag |= CaveColumns.FALL_FLAG;
+			height = prevTopHeight + CaveColumns.JUMP_FALL_HEIGHT;
+			
+			if (height > CaveSimulation.PANEL_HEIGHT - CaveColumns.SEPARATION) height = CaveSimulation.PANEL_HEIGHT - CaveColumns.SEPARATION;
+		//Pick a random top height for a normal block from the heights it is allowed to have
+		} else {
+			int low = Math.max(prevTopHeight - TOLERANCE, MIN_HEIGHT);
+			int high = Math.min(prevTopHeight + TOLERANCE, MAX_HEIGHT);
+			if (low > high) height = prevTopHeight < MIN_HEIGHT ? low : high;
+			else height = low + nextInt(high - low + 1);
+		}
+		columns.append(height, flag);
+	}
+	
+	//Save where the generator is in its sequence to rewind
+	public void save(RewindBuffer rewind) {
+		rewind.putLong(state);
+		rewind.putInt(blocksSinceLastGap);
+	}
+	
+	public void restore(RewindBuffer rewind) {
+		state = rewind.getLong();
+		blocksSinceLastGap = rewind.getInt();
+	}
+	
+	//Next 64 random bits from the SplitMix64 sequence
+	private long nextLong() {
+		long z = (state += 0x9E3779B97F4A7C15L);
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+	
+	//Random double from 0 up to 1
+	private double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+	
+	//Random int from 0 up to bound
+	private int nextInt(int bound) {
+		return (int) (((nextLong() >>> 32) * bound) >>> 32);
+	}
+	
+	//Getter methods
+	public long getSeed() {
+		return seed;
+	}
+}
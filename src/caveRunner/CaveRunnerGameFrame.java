@@ -1,38 +1,29 @@
 /*
  * Name: Jack Whitman
- * Description: The CaveRunnerGameFrame class, the main frame of the game, handles game setup, frame creation, data loading and saving, score handling, component layout, and keypresses.
+ * Description: The CaveRunnerGameFrame class, the main frame of the game, handles game setup, frame creation, score handling, component layout, and keypresses. Scores are loaded and saved by a ScoreStore in the background, and the score, high score, and lose screen are drawn by the game panel's HUD.
  */
 package caveRunner;
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
 import javax.swing.JFrame;
-import javax.swing.JLabel;
-import aurelienribon.tweenengine.Tween;
 import java.awt.*;
 import java.awt.event.*;
-import java.io.File;
-import java.io.IOException;
-import java.util.Scanner;
-import java.io.FileWriter;
+import java.util.List;
 
 @SuppressWarnings("serial")
 public class CaveRunnerGameFrame extends JFrame implements ActionListener, KeyListener {
 	
+	//Constants
+	public final static String SCORE_FILE = System.getProperty("caverunner.scores", "scores.log");
+	private final static int LEADERBOARD_SIZE = 5;
+	
 	//Components of game frame
 	private CaveRunnerGamePanel mainPanel;
 	private BorderPanel borderPanel;
-	private JLabel scoreLabel, highscoreLabel;
 	private JButton start;
-	private int score, highscore;
-	private File highscoreFile;
+	private ScoreStore scores;
 	
 	public CaveRunnerGameFrame() {
-		//Set up cave block tweening
-		Tween.registerAccessor(CaveBlock.class, new CaveBlockTweener());
-		
-		//Set score and high score
-		score = highscore = 0;
-		
 		//Set up main frame
 		setTitle("Cave Runner");
 		setSize(850, 535);
@@ -41,10 +32,9 @@ public class CaveRunnerGameFrame extends JFrame implements ActionListener, KeyLi
 		setLayout(new GridBagLayout());
 		
 		//Instantiate components of layout
-		borderPanel = new BorderPanel();
-		mainPanel = new CaveRunnerGamePanel(this);
-		scoreLabel = new JLabel("Score: 0");
-		highscoreLabel = new JLabel("Highscore: 0");
+		CaveBackground background = new CaveBackground();
+		borderPanel = new BorderPanel(background);
+		mainPanel = new CaveRunnerGamePanel(this, background);
 		start = new JButton("Restart Game");
 		
 		//Set cosmetics of components
@@ -52,10 +42,8 @@ public class CaveRunnerGameFrame extends JFrame implements ActionListener, KeyLi
 		borderPanel.setBorder(BorderFactory.createLineBorder(Color.red));
 		
 		//Add components to the frame
-		addComponent(scoreLabel, 0, 0, 1, 1, 1, 0, 0, 0, 0, 10);
-		addComponent(highscoreLabel, 1, 0, 1, 1, 1, 0, 0, 0, 0, 10);
-		addComponent(borderPanel, 0, 1, 2, 1, 1, 1, 0, 0, 5, 5);
-		addComponent(start, 0, 2, 2, 1, 0, 0, 200, 0, 0, 10);
+		addComponent(borderPanel, 0, 0, 1, 1, 1, 1, 0, 0, 5, 5);
+		addComponent(start, 0, 1, 1, 1, 0, 0, 200, 0, 0, 10);
 		
 		//Position main panel in border
 		mainPanel.setBounds(17, 17, CaveRunnerGamePanel.PANEL_WIDTH, CaveRunnerGamePanel.PANEL_HEIGHT);
@@ -65,6 +53,13 @@ public class CaveRunnerGameFrame extends JFrame implements ActionListener, KeyLi
 		//Make keys work
 		this.addKeyListener(this);
 		
+		//Save a game left on the lose screen with its rewind unused before the window closes
+		this.addWindowListener(new WindowAdapter() {
+			public void windowClosing(WindowEvent e) {
+				mainPanel.finishRun();
+			}
+		});
+		
 		//Display frame
 		this.setVisible(true);
 		
@@ -73,23 +68,13 @@ public class CaveRunnerGameFrame extends JFrame implements ActionListener, KeyLi
 		start.setFocusable(false);
 		start.setEnabled(false);
 		
-		//Highscore setup
-		try {
-			highscoreFile = new File("highscore.txt");
-			boolean newFile = highscoreFile.createNewFile();
-			Scanner in = new Scanner(highscoreFile);
-			if (newFile) {
-				FileWriter out = new FileWriter(highscoreFile);
-			    out.write("0");
-			    out.close();
-			}
-			highscore = Integer.parseInt(in.nextLine());
-			highscoreLabel.setText("Highscore: " + highscore);
-			in.close();
-		} catch (IOException e) {
-			System.out.println("File error occured. Highscores will not be available");
-			highscoreLabel.setText("");
-		}
+		//Highscore setup, the HUD shows it once the scores are loaded in the background
+		scores = new ScoreStore(SCORE_FILE, () -> EventQueue.invokeLater(this::showHighScore));
+	}
+	
+	//Show the loaded high score
+	private void showHighScore() {
+		mainPanel.setHighScore(scores.isAvailable() ? scores.getHighScore() : -1);
 	}
 	
 	//Method to add component to GridLayout
@@ -102,86 +87,82 @@ public class CaveRunnerGameFrame extends JFrame implements ActionListener, KeyLi
 	public void actionPerformed(ActionEvent e) {
 		System.out.println("button");
 		if (e.getSource() == start) {
-			score = 0;
-			scoreLabel.setText("Score: 0");
-			mainPanel.setVisible(true);
 			mainPanel.startGame();
-			borderPanel.resetLost();
 			start.setEnabled(false);
 		}
 	}
 	
-	//Increase score labels
-	public void increaseScore() {
-		score++;
-		scoreLabel.setText("Score: " + score);
-		if (score > highscore) {
-			highscore = score;
-			highscoreLabel.setText("Highscore: " + highscore);
+	//Print the leaderboard and stats of every run
+	private void printScores() {
+		List<RunRecord> top = scores.getTopRuns(LEADERBOARD_SIZE);
+		System.out.println("\nLeaderboard:");
+		for (int i = 0; i < top.size(); i++) {
+			RunRecord run = top.get(i);
+			System.out.println((i + 1) + ". " + run.getScore() + (run.getLevel() >= 0 ? " (level " + run.getLevel() + ", " + run.getDurationMs() / 1000 + " s, seed " + run.getSeed() + ")" : ""));
 		}
+		System.out.printf("%d runs, average score %.1f, best level %d, %d minutes played%n", scores.getRunCount(), scores.getAverageScore(), scores.getBestLevel(), scores.getTotalPlayMs() / 60000);
 	}
 	
-	//Save high score to file
-	public void saveHighScore() {
-		try {
-			Scanner in = new Scanner(highscoreFile);
-			int lastHighscore = Integer.parseInt(in.nextLine());
-			if (lastHighscore < highscore) {
-				FileWriter out = new FileWriter(highscoreFile);
-			    out.write(Integer.toString(highscore));
-			    out.close();
-			}
-			in.close();
-		} catch (IOException e) {
-			System.out.print("File error occured. Highscores will not be available");
-			highscoreLabel.setText("");
-		}
+	//Scroll the background behind the game
+	public void scrollBackground(float scroll) {
+		borderPanel.setScroll(scroll);
 	}
 	
-	//Reset components on death
+	//Show the lose screen on death
 	public void onDeath() {
-		saveHighScore();
-		score = 0;
 		start.setEnabled(true);
-		mainPanel.setVisible(false);
-		borderPanel.paintYouLose();
+		mainPanel.showLost();
 	}
 	
-
+	//Save a finished run, print the leaderboard, and count it toward the high score the HUD shows
+	public void recordRun(RunRecord run) {
+		scores.record(run);
+		printScores();
+		showHighScore();
+	}
+	
+	
 	public void keyTyped(KeyEvent e) {}
-
+	
 	//Key press handling
 	public void keyPressed(KeyEvent e) {
 		switch(e.getKeyCode()) {
 			case KeyEvent.VK_SPACE:
 			case KeyEvent.VK_UP:
-				mainPanel.setJump(true);
+				mainPanel.pressKey(InputState.JUMP);
 				break;
 			case KeyEvent.VK_A:
 			case KeyEvent.VK_LEFT:
-				mainPanel.setLeft(true);
+				mainPanel.pressKey(InputState.LEFT);
 				break;
 			case KeyEvent.VK_D:
 			case KeyEvent.VK_RIGHT:
-				mainPanel.setRight(true);
+				mainPanel.pressKey(InputState.RIGHT);
+				break;
+			case KeyEvent.VK_F3:
+				mainPanel.toggleOverlay();
+				break;
+			case KeyEvent.VK_R:
+				//Only from the lose screen, once the game has stopped
+				if (start.isEnabled() && mainPanel.rewind()) start.setEnabled(false);
 				break;
 		}
 	}
-
+	
 	//Key release handling
 	public void keyReleased(KeyEvent e) {
 		switch(e.getKeyCode()) {
 		case KeyEvent.VK_SPACE:
 		case KeyEvent.VK_UP:
-			mainPanel.setJump(false);
+			mainPanel.releaseKey(InputState.JUMP);
 			break;
 		case KeyEvent.VK_A:
 		case KeyEvent.VK_LEFT:
-			mainPanel.setLeft(false);
+			mainPanel.releaseKey(InputState.LEFT);
 			break;
 		case KeyEvent.VK_D:
 		case KeyEvent.VK_RIGHT:
-			mainPanel.setRight(false);
+			mainPanel.releaseKey(InputState.RIGHT);
 			break;
 		}
 	}
@@ -1,324 +1,365 @@
 /*
  * Name: Jack Whitman
- * Description: The CaveRunnerGamePanel class is the most complex class in the game. It creates a JLayeredPane that displays the game and handles player movement, physics, collisions, timing, animation, death, game creation, game restart, and cave generation.
+ * Description: The CaveRunnerGamePanel class creates a JLayeredPane that displays the game. It plays a GameSession on the GameLoop's simulation thread, which steps the CaveSimulation with keyboard input taken from an InputQueue at the start of each tick and publishes a snapshot of every step through a SnapshotBuffer. On the event dispatch thread it takes the latest snapshot and either moves the cave panels and player label to match it or hands it to a CaveCanvas when the canvas renderer is selected with -Dcaverunner.renderer=canvas. The last five seconds are kept in a RewindBuffer so a death can be rewound once a game. With -Dcaverunner.endless=true the cave scrolls forever instead of being remade every screen, and -Dcaverunner.seed picks the course. Every game is recorded as a Replay in the folder named by -Dcaverunner.replays. F3 shows a developer overlay with frame timings, and -Dcaverunner.stats writes their histograms to a CSV file on exit.
  */
 package caveRunner;
-import aurelienribon.tweenengine.TweenManager;
-import aurelienribon.tweenengine.BaseTween;
-import aurelienribon.tweenengine.Tween;
-import aurelienribon.tweenengine.TweenCallback;
-import aurelienribon.tweenengine.equations.Quad;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import java.awt.Color;
+import java.awt.EventQueue;
+import java.awt.Graphics;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
 import javax.swing.JLayeredPane;
-import javax.swing.Timer;
+import javax.swing.JPanel;
 
 @SuppressWarnings("serial")
-public class CaveRunnerGamePanel extends JLayeredPane implements ActionListener {
+public class CaveRunnerGamePanel extends JLayeredPane implements GameLoop.Game, SimulationListener {
 	
 	//Constants
-	public final static int PANEL_WIDTH = 800;
-	public final static int PANEL_HEIGHT = 400;
-	private final static int JUMP_HEIGHT = 15;
-	private final static int WALK_SPEED = 4;
-	private final static double GRAVITY = -1;
-	private final static float CLOSE_TIME = 3.0f;
-	private final static float OPEN_TIME = 2.0f;
-	private final static int CAVE_INTERVAL = 10000;
-	
-	//Instance vars for game components
+	public final static int PANEL_WIDTH = CaveSimulation.PANEL_WIDTH;
+	public final static int PANEL_HEIGHT = CaveSimulation.PANEL_HEIGHT;
+	public final static boolean USE_CANVAS = "canvas".equals(System.getProperty("caverunner.renderer"));
+	public final static int FPS = Integer.getInteger("caverunner.fps", 0);
+	public final static boolean ENDLESS = Boolean.getBoolean("caverunner.endless");
+	public final static String SEED = System.getProperty("caverunner.seed");
+	public final static String STATS_FILE = System.getProperty("caverunner.stats");
+	public final static String REPLAY_DIR = System.getProperty("caverunner.replays", "replays");
+	private final static long MAX_ANIMATION_STEP_NANOS = 250_000_000L;
+	private final static int REWINDS_PER_GAME = 1;
+	
+	//Colors
+	private final static Color NORMAL_COLOR = Color.decode("#334766");
+	private final static Color JUMP_COLOR = Color.decode("#1f2b3d");
+	private final static Color FALL_COLOR = Color.decode("#242b7e");
+	
+	//Instance vars for game components, the session plays each tick and sim and inputQueue are its own
+	private GameSession session;
+	private CaveSimulation sim;
+	private InputQueue inputQueue;
+	private int rewindsLeft;
+	
+	//A game that ended but can still be rewound, it is saved once it can no longer continue
+	private RunRecord pendingRun;
 	private Player plr;
-	private CaveBlock[] blocks;
+	private JPanel[][] blockPanels;
+	private CaveCanvas canvas;
+	private CaveBackground background;
 	private CaveRunnerGameFrame parentFrame;
+	private DevOverlay overlay;
+	private Hud hud;
+	private CaveEffects effects;
+	private boolean shownFirstFrame;
 	
-	//Instance vars for animation and movement
-	private boolean left, right, startJump, isOnGround, lastDirectionLeft;
-	private int nearestBlockIndex, vy, highestBlock, coordInBlock;
+	//Keys held down right now as InputState key bits, only touched on the event dispatch thread
+	private int heldKeys;
 	
-	//Instance vars for game handling
-	private int level, timeElapsedMs;
-	private float newOpenTime, newCloseTime;
-	private boolean wasOpening;
-	private float openElapsedSec;
-
-	//Tweening instance vars
-	private TweenManager manager;
-	private TweenCallback closeCallback, openCallback, startTimerCallback;
+	//Loop instance vars, the snapshots and events are how the simulation thread talks to the renderer
+	private GameLoop loop;
+	private SnapshotBuffer snapshots;
+	private SimEvents events;
+	private long shownTick, effectsTick, lastRenderNanos;
 	
-	//Timer instance vars
-	private Timer animTimer, caveTimer;
+	//Time spent updating the components since they were last painted, the component path's frame ends when they are painted
+	private long unpaintedNanos;
+	private boolean framePending;
 	
-	public CaveRunnerGamePanel(CaveRunnerGameFrame parentFrame) {
+	public CaveRunnerGamePanel(CaveRunnerGameFrame parentFrame, CaveBackground background) {
 		//Set vars to default values
-		level = timeElapsedMs = 0;
-		newOpenTime = OPEN_TIME;
-		newCloseTime = CLOSE_TIME;
 		setLayout(null);
 		this.parentFrame = parentFrame;
-		manager = new TweenManager();
-		isOnGround = false;
-		nearestBlockIndex = 0;
-		openElapsedSec = 0.0f;
-		wasOpening = false;
-		lastDirectionLeft = false;
-		highestBlock = 0;
-		
-		//Set up tween callbacks
-		closeCallback = new TweenCallback() {
-			public void onEvent(int arg0, BaseTween<?> arg1) {
-				blocks[0].setClosed(true);
-			}
-		};
-		
-		openCallback = new TweenCallback() {
-			public void onEvent(int arg0, BaseTween<?> arg1) {
-				blocks[0].setClosed(false);
-				openElapsedSec = 0.0f;
-			}
-		};
-
-		startTimerCallback = new TweenCallback() {
-			public void onEvent(int arg0, BaseTween<?> arg1) {
-				caveTimer.start();
+		this.background = background;
+		events = new SimEvents();
+		session = new GameSession(this, ENDLESS, nextSeed());
+		sim = session.getSimulation();
+		inputQueue = session.getInputQueue();
+		snapshots = session.getSnapshots();
+		rewindsLeft = REWINDS_PER_GAME;
+		
+		//Create player
+		plr = new Player(sim.getPlayerX(), sim.getPlayerY());
+		
+		//Create particle effects
+		effects = new CaveEffects();
+		
+		//Create HUD and developer overlay, and save the overlay's timings on exit if asked to
+		hud = new Hud(sim.getScore(), sim.getLevel());
+		overlay = new DevOverlay();
+		if (STATS_FILE != null) Runtime.getRuntime().addShutdownHook(new Thread(() -> overlay.writeCsv(STATS_FILE)));
+		
+		if (USE_CANVAS) {
+			//Draw everything on one canvas
+			canvas = new CaveCanvas(background);
+			canvas.setParticles(effects.getParticles());
+			canvas.setHud(hud);
+			canvas.setOverlay(overlay);
+			this.add(canvas, 1);
+		} else {
+			//Create panels for every column, two per column
+			blockPanels = new JPanel[sim.getColumns().getCapacity()][2];
+			for (int i = 0; i < blockPanels.length; i++) {
+				for (int j = 0; j < blockPanels[i].length; j++) {
+					blockPanels[i][j] = new JPanel();
+					this.add(blockPanels[i][j], 1);
+				}
 			}
-		};
-		
-		//Create array of blocks
-		blocks = new CaveBlock[PANEL_WIDTH / CaveBlock.BLOCK_WIDTH];
-		blocks[0] = new CaveBlock(0, true);
-		for (int i = 1; i < blocks.length; i++)
-			blocks[i] = new CaveBlock(blocks[i-1]);
-		
-		//Add blocks to panel
-		for(int i = 0; i < blocks.length; i++)
-			for (int j = 0; j < blocks[i].getPanels().length; j++)
-				this.add(blocks[i].getPanels()[j], 1);
-		
-		//Create and add player
-		plr = new Player(0, 200);
-		this.add(plr, 2);
+			
+			//Add player, particles, HUD, and overlay
+			this.add(plr, 2);
+			this.add(effects.getParticles(), JLayeredPane.PALETTE_LAYER);
+			this.add(hud, JLayeredPane.MODAL_LAYER);
+			this.add(overlay, JLayeredPane.POPUP_LAYER);
+			drawBlocks(snapshots.getLatest(), 0, 0);
+		}
 		
-		//Create and start timers
-		animTimer = new Timer(10, this);
-		animTimer.start();
-		caveTimer = new Timer(CAVE_INTERVAL, this);
-		caveTimer.setInitialDelay(5000);
-		caveTimer.start();	
+		//Create and start game loop
+		loop = new GameLoop(this, CaveSimulation.TICK_MS * 1_000_000L, FPS);
+		loop.start();
 	}
 	
-	//Method connected to restart game button
+	//Method connected to restart game button, the simulation thread has stopped by the time it can be pressed
 	public void startGame() {
-		nearestBlockIndex = 0;
-		animTimer.restart();
-		caveTimer.restart();
-		level = -1;
-		regen();
+		finishRun();
+		session.restart(nextSeed());
+		rewindsLeft = REWINDS_PER_GAME;
+		resume();
 	}
 	
-	//Animate loop method
-	private void animate() {
-		//Update tween manager
-		manager.update(0.01f);
-		
-		//Update timing
-		timeElapsedMs += 10;
-		if (blocks[0].isClosed() == true) openElapsedSec += 0.01f;
-		
-		//Local vars for position
-		int blockY = blocks[nearestBlockIndex].getPanels()[1].getY();
-		int distanceToGround = plr.getY() + Player.CHAR_HEIGHT - blockY;
-		
-		//Local vars for movement restrictions
-		boolean canLeft = true, canRight = true, canJump = true;
-		boolean nextBlockCutoffJump = (coordInBlock >= CaveBlock.BLOCK_WIDTH / 2 && (nearestBlockIndex < 19 ? blocks[nearestBlockIndex + 1].isCutoffJumpBlock() : false));
-		boolean nextBlockJump = !nextBlockCutoffJump && (coordInBlock >= CaveBlock.BLOCK_WIDTH / 2 && (nearestBlockIndex < 19 ? blocks[nearestBlockIndex + 1].isJumpBlock() : false));
-		boolean prevBlockGap = (coordInBlock < CaveBlock.BLOCK_WIDTH / 2 && (nearestBlockIndex > 0 ? blocks[nearestBlockIndex - 1].isGap() : false));
-		boolean nextBlockGap = (coordInBlock >= CaveBlock.BLOCK_WIDTH / 2 && (nearestBlockIndex < 19 ? blocks[nearestBlockIndex + 1].isGap() : false));
-		boolean closedBelowHead = blocks[nearestBlockIndex].getClosureAmount() > CaveBlock.SEPARATION - Player.CHAR_HEIGHT + 10;
-		
-		//Instance var updates
-		isOnGround = plr.getY() + Player.CHAR_HEIGHT >= blockY;
-		nearestBlockIndex = (plr.getX() + Player.CHAR_WIDTH / 2) / CaveBlock.BLOCK_WIDTH;
-		coordInBlock = (plr.getX() + Player.CHAR_WIDTH / 2) % CaveBlock.BLOCK_WIDTH;
-		
-		int yDistToNext = nearestBlockIndex < 19 ? (plr.getY() + Player.CHAR_HEIGHT) - (blocks[nearestBlockIndex + 1].getPanels()[1].getY()) : 0;
-
-		//Gravity
-		if (!isOnGround) {
-			vy -= GRAVITY;
-			plr.drawAt(plr.getX(), plr.getY() + vy);
+	//Go back a few seconds from a death and play on from there, returns false if the game has no rewinds left
+	public boolean rewind() {
+		if (!sim.isDead() || rewindsLeft == 0) return false;
+		rewindsLeft--;
+		pendingRun = null;
+		long start = System.nanoTime();
+		long tick = session.rewind(GameSession.REWIND_TICKS);
+		System.out.println("Rewound to tick " + tick + " in " + (System.nanoTime() - start) / 1000 + " us");
+		resume();
+		return true;
+	}
+	
+	//Clear what was left from the last game or death and start the loop from the simulation's state
+	private void resume() {
+		//Events queued on the lose screen are dropped, so start from the keys that are really held
+		session.resume(heldKeys);
+		events.clear();
+		effects.reset();
+		effectsTick = sim.getTick();
+		hud.setLost(false);
+		if (!USE_CANVAS) {
+			SimSnapshot snapshot = snapshots.getLatest();
+			drawBlocks(snapshot, snapshot.getCameraX(1), Math.round(snapshot.getClosure(1)));
 		}
-		
-		//Figure out score
-		if (nearestBlockIndex > highestBlock) {
-			highestBlock = nearestBlockIndex;
-			parentFrame.increaseScore();
+		loop.start();
+	}
+	
+	//Seed for the next game, a fixed seed replays the same course every game
+	private static long nextSeed() {
+		long seed;
+		if (SEED == null) seed = System.nanoTime();
+		else if (SEED.equals("daily")) seed = LocalDate.now().toEpochDay();
+		else seed = Long.parseLong(SEED);
+		System.out.println("Seed: " + seed);
+		return seed;
+	}
+	
+	//Step the simulation once and publish the new state, called on the simulation thread
+	public void tick() {
+		if (sim.isDead()) return;
+		overlay.recordTick(session.step());
+		if (sim.isDead()) {
+			loop.stop();
+			RunRecord run = new RunRecord(sim.getScore(), sim.getLevel(), sim.getTick() * CaveSimulation.TICK_MS, sim.getSeed(), ENDLESS, sim.getDeathCause(), System.currentTimeMillis());
+			EventQueue.invokeLater(() -> gameOver(run));
 		}
-		
-		//Regenerate if at end
-		if (nearestBlockIndex >= blocks.length) {
-			nearestBlockIndex = 0;
-			regen();
+	}
+	
+	//Print the run's timings and let the frame show the lose screen, called on the event dispatch thread
+	private void gameOver(RunRecord run) {
+		TimingHistogram renderTimes = overlay.getRenderTimes();
+		if (renderTimes.getCount() > 0) System.out.println("Average frame time (" + (USE_CANVAS ? "canvas" : "components") + "): " + renderTimes.getAverageNanos() / 1000 + " us");
+		if (inputQueue.getLatencyCount() > 0) System.out.println("Input to frame latency: " + inputQueue.getAverageLatencyNanos() / 1000 + " us average, " + inputQueue.getMaxLatencyNanos() / 1000 + " us max");
+		if (inputQueue.getDropped() > 0) System.out.println("Dropped key events: " + inputQueue.getDropped());
+		
+		//A run that can be rewound is not saved yet, or it would be counted again when the rewound game ends
+		pendingRun = run;
+		if (rewindsLeft == 0) finishRun();
+		parentFrame.onDeath();
+	}
+	
+	//Save the replay and score of a game that ended and will not be rewound, called on the event dispatch thread
+	public void finishRun() {
+		if (pendingRun == null) return;
+		Replay replay = session.getReplay();
+		replay.finish(pendingRun.getScore(), pendingRun.getDeathCause());
+		saveReplay(replay);
+		parentFrame.recordRun(pendingRun);
+		pendingRun = null;
+	}
+	
+	//Save the finished game's replay
+	private void saveReplay(Replay replay) {
+		if (REPLAY_DIR.isEmpty()) return;
+		if (!replay.isComplete()) {
+			System.out.println("Replay was not saved, the game was longer than " + Replay.MAX_TICKS * CaveSimulation.TICK_MS / 60000 + " minutes");
+			return;
 		}
-		
-		//Block player if they are past a fall block
-		if (blocks[nearestBlockIndex].isFallBlock() && coordInBlock < CaveBlock.BLOCK_WIDTH / 2) canLeft = canJump = false;
-		
-		//Block player if they need to jump up
-		if ((nextBlockJump && yDistToNext > 0) || (nextBlockCutoffJump && yDistToNext > 50)) canRight = false;
-		
-		//Move player up to the ground
-		if (!nextBlockJump)
-			if (distanceToGround < CaveBlock.JUMP_FALL_HEIGHT)
-				while (plr.getY() + Player.CHAR_HEIGHT > blockY)
-					plr.drawAt(plr.getX(), plr.getY() - 1);
-		
-		//Prevent movement outside of gaps when cave is closed
-		if (blocks[nearestBlockIndex].isGap() && closedBelowHead) {
-			canLeft = canRight = false;
-			if (prevBlockGap || coordInBlock > 10) canLeft = true;
-			if (nextBlockGap || coordInBlock < CaveBlock.BLOCK_WIDTH - 10) canRight = true;
+		File dir = new File(REPLAY_DIR);
+		dir.mkdirs();
+		String path = new File(dir, replay.getSeed() + "-" + System.currentTimeMillis() + ".crr").getPath();
+		try {
+			replay.write(path);
+			System.out.println("Died (" + replay.getDeathCause() + "), replay saved to " + path);
+		} catch (IOException e) {
+			System.out.println("File error occured. Replay was not saved to " + path);
 		}
-		
-		//Check if player should be dead
-		if (!blocks[nearestBlockIndex].isGap() && closedBelowHead) {
-			caveTimer.stop();
-			animTimer.stop();
-			parentFrame.onDeath();
+	}
+	
+	//Draw the latest step, between it and the step before depending on how long ago it was taken
+	public void render() {
+		long start = System.nanoTime();
+		SimSnapshot snapshot = snapshots.getLatest();
+		float alpha = snapshot.getAlpha(start, loop.getStepNanos());
+		catchUp(snapshot);
+		
+		//Animate by real time, so clips play at the same speed at any step or frame rate
+		if (snapshot.getAnimation() != CaveSimulation.NO_ANIMATION) plr.animate(snapshot.getAnimation(), snapshot.isFacingBack());
+		plr.advance(Math.min(start - lastRenderNanos, MAX_ANIMATION_STEP_NANOS));
+		lastRenderNanos = start;
+		int cameraX = snapshot.getCameraX(alpha);
+		hud.update(snapshot.getScore(), snapshot.getLevel());
+		plr.drawAt(snapshot.getPlayerX(alpha) - cameraX, snapshot.getPlayerY(alpha));
+		shownTick = snapshot.getTick();
+		
+		if (USE_CANVAS) {
+			//Draw the whole frame now
+			if (canvas.render(snapshot, plr, alpha)) frameShown(start, System.nanoTime());
+			overlay.endFrame(loop.getQueueDelayNanos(), System.nanoTime() - start, loop.getFrameNanos());
+		} else {
+			//Move components to match the simulation, the frame is checked against its budget once they are painted
+			drawBlocks(snapshot, cameraX, Math.round(snapshot.getClosure(alpha)));
+			effects.getParticles().setView(cameraX, alpha);
+			parentFrame.scrollBackground(snapshot.getDistance(alpha));
+			unpaintedNanos += System.nanoTime() - start;
+			framePending = true;
 		}
-		
-		//Ceiling collisions
-		if (plr.getY() + 5 < blocks[nearestBlockIndex].getTopY() && !closedBelowHead) {
-			vy = 0;
-			while (plr.getY() < blocks[nearestBlockIndex].getTopY())
-				plr.drawAt(plr.getX(), plr.getY() + 1);
+	}
+	
+	//Run the effects for every step since the last frame, at most a quarter second of them after a stall
+	private void catchUp(SimSnapshot snapshot) {
+		effectsTick = Math.max(effectsTick, snapshot.getTick() - 25);
+		while (effectsTick < snapshot.getTick()) {
+			effectsTick++;
+			events.drainTo(effects, effectsTick);
+			effects.tick(snapshot);
 		}
-		
-		//Jump, move left, and move right, with animations
-		if (startJump == true && isOnGround && canJump) {
-			vy = -JUMP_HEIGHT;
-			plr.drawAt(plr.getX(), plr.getY() - JUMP_HEIGHT);
+	}
+	
+	//Time the component path's painting, including the block layout done during painting, and check the updates and painting of the frame against its budget
+	public void paint(Graphics g) {
+		long start = System.nanoTime();
+		super.paint(g);
+		if (USE_CANVAS) return;
+		long end = System.nanoTime();
+		frameShown(start, end);
+		
+		//Only count paints that show a new update, not the overlay repainting its own text
+		if (!framePending) return;
+		framePending = false;
+		overlay.endFrame(loop.getQueueDelayNanos(), unpaintedNanos + end - start, loop.getFrameNanos());
+		unpaintedNanos = 0;
+	}
+	
+	//Record a frame that started drawing at start and reached the screen at end, printing the startup time for the first one
+	private void frameShown(long start, long end) {
+		overlay.recordRender(end - start);
+		inputQueue.frameShown(end, shownTick);
+		if (!shownFirstFrame) {
+			shownFirstFrame = true;
+			System.out.printf("Time to first frame: %.0f ms%n", (end - Main.START_NANOS) / 1e6);
 		}
-		
-		if (!isOnGround) plr.animate("jump", lastDirectionLeft);
-		
-		if (left == true && canLeft && plr.getX() > -30) {
-			if (isOnGround) plr.animate("run", true);
-			plr.drawAt(plr.getX() - WALK_SPEED, plr.getY());
-			lastDirectionLeft = true;
-		} 
-		
-		if (right == true && canRight) {
-			if (isOnGround) plr.animate("run", false);
-			plr.drawAt(plr.getX() + WALK_SPEED, plr.getY());
-			lastDirectionLeft = false;
-		} 
-		
-		//Idle animation
-		if (isOnGround && (!startJump && !left && !right || ((left && !canLeft) || (right && !canRight)))) plr.animate("idle", lastDirectionLeft);
 	}
 	
-	//Regenerate
-	public void regen() {
-		//Reset vars and redraw player
-		level++;
-		highestBlock = 0;
-		plr.drawAt(-Player.CHAR_WIDTH/2, 200);
-		
-		
-		//Exponential equation for cave interval
-		int newCaveInterval = (int)Math.pow(0.95, level - 172.61) + 3000;
-		int nextInterval = newCaveInterval - timeElapsedMs;
-		
-		//Exponential equations for new open and close time
-		newCloseTime = (float)Math.pow(0.95, level - 17.864) + 0.5f;
-		newOpenTime = (float)Math.pow(0.95, level - 10.34) + 0.3f;
-		
-		//Speed up game
-		caveTimer.stop();
-		caveTimer.setDelay(newCaveInterval);
-		caveTimer.setInitialDelay(nextInterval > 0 ? nextInterval : 1);
-		
-		
-		
-		//Remake array of blocks
-		int prevClosure = blocks[0].getClosureAmount();
-		boolean prevClosed = blocks[0].isClosed();
-		
-		for(int i = 0; i < blocks.length; i++) {
-			blocks[i].setClosed(false);
-			for (int j = 0; j < blocks[i].getPanels().length; j++)
-				this.remove(blocks[i].getPanels()[j]);
+	//Move block panels to match the blocks
+	private void drawBlocks(SimSnapshot snapshot, int cameraX, int closure) {
+		CaveColumns columns = snapshot.getColumns();
+		int capacity = columns.getCapacity();
+		
+		//Hide panels that have no column yet
+		for (int i = columns.getEnd(); i < columns.getFirst() + capacity; i++) {
+			blockPanels[i % capacity][0].setBounds(0, 0, 0, 0);
+			blockPanels[i % capacity][1].setBounds(0, 0, 0, 0);
 		}
-			
-		
-		parentFrame.repaint();
-		blocks = new CaveBlock[PANEL_WIDTH / CaveBlock.BLOCK_WIDTH];
-		blocks[0] = new CaveBlock(0, level == 0);
-		
-		for (int i = 1; i < blocks.length; i++)
-			blocks[i] = new CaveBlock(blocks[i-1]);
 		
-		//Add blocks to panel
-		for(int i = 0; i < blocks.length; i++)
-			for (int j = 0; j < blocks[i].getPanels().length; j++)
-				this.add(blocks[i].getPanels()[j], 1);
-		
-				
-		//Reset cave closing/opening to previous position
-		if (prevClosure != 0) {
-			caveTimer.stop();
-			timeElapsedMs = 0;
-			if (prevClosed == false && wasOpening == false) {
-				for (int i = 0; i < blocks.length; i++)
-					Tween.to(blocks [i], 0, newCloseTime).target(CaveBlock.SEPARATION).setCallback(closeCallback).ease(Quad.OUT).start(manager);
-				
-				for (int i = 0; i < blocks.length; i++)
-					Tween.to(blocks[i], 0, newOpenTime).target(0).delay(newCloseTime).setCallback(openCallback).setCallback(startTimerCallback).start(manager);
-			} else {
-				for (int i = 0; i < blocks.length; i++) {
-					wasOpening = true;
-					Tween.to(blocks[i], 0, newOpenTime - openElapsedSec > 0 ? newOpenTime - openElapsedSec : 0.01f).setCallback(openCallback).setCallback(startTimerCallback).target(0).start(manager);
-				}
-			}	
-			caveTimer.setInitialDelay(newCaveInterval);
-		} else {
-			caveTimer.start();
+		for (int i = columns.getFirst(); i < columns.getEnd(); i++) {
+			JPanel[] panels = blockPanels[i % capacity];
+			int x = columns.getX(i) - cameraX;
+			Color blockColor = blockColor(columns, i);
+			panels[0].setBackground(blockColor);
+			panels[1].setBackground(blockColor);
+			panels[0].setBounds(x, 0, CaveColumns.BLOCK_WIDTH, columns.getCeilingY(i) + closure);
+			panels[1].setBounds(x, columns.getFloorY(i), CaveColumns.BLOCK_WIDTH, PANEL_HEIGHT - columns.getTopHeight(i));
 		}
-		
-		System.out.println("\nNew Interval: " + newCaveInterval);
-		System.out.println("New Open Time: " + newOpenTime);
-		System.out.println("New Close Time: " + newCloseTime);
 	}
-
-	//Open and close cave
-	public void moveCave() {
-		wasOpening = false;
-		timeElapsedMs = 0;
-		//Close
-		for (int i = 0; i < blocks.length; i++)
-			Tween.to(blocks[i], 0, newCloseTime).target(CaveBlock.SEPARATION).setCallback(closeCallback).ease(Quad.OUT).start(manager);
-		//Open
-		for (int i = 0; i < blocks.length; i++)
-			Tween.to(blocks[i], 0, newOpenTime).target(0).delay(newCloseTime).setCallback(openCallback).start(manager);
+	
+	//Color of a column based on its type
+	public static Color blockColor(CaveColumns columns, int column) {
+		return columns.isJumpBlock(column) ? JUMP_COLOR : columns.isFallBlock(column) ? FALL_COLOR : NORMAL_COLOR;
+	}
+	
+	//Show the lose screen over the last step, drawn here because the loop has stopped
+	public void showLost() {
+		hud.setRewindAvailable(rewindsLeft > 0);
+		hud.setLost(true);
+		render();
+	}
+	
+	//Show the best saved score, -1 hides it
+	public void setHighScore(int highscore) {
+		hud.setHighScore(highscore);
+	}
+	
+	//Simulation event handling, called on the simulation thread during a step
+	public void scoreIncreased() {
+		//The HUD reads the score from each snapshot
+	}
+	
+	public void playerDied() {
+		//Handled at the end of the tick, once the last snapshot is published
+	}
+	
+	public void caveRegenerated() {
+		//Block panels are reused and the background is cached, so nothing needs a full repaint, only the old cave's particles go
+		events.offer(sim.getTick(), SimEvents.REGENERATED, 0, 0, 0);
+	}
+	
+	public void caveClosing() {
+		events.offer(sim.getTick(), SimEvents.CAVE_CLOSING, 0, 0, 0);
+	}
+	
+	public void caveOpening() {
+		events.offer(sim.getTick(), SimEvents.CAVE_OPENING, 0, 0, 0);
+	}
+	
+	public void playerLanded(int x, int y, int speed) {
+		events.offer(sim.getTick(), SimEvents.LANDED, x, y, speed);
 	}
 	
-	//Timer handling
-	public void actionPerformed(ActionEvent e) {
-		if (e.getSource() == animTimer) animate();
-		else if (e.getSource() == caveTimer) moveCave();
+	public void playerCrossedStep(int x, int y) {
+		events.offer(sim.getTick(), SimEvents.STEP, x, y, 0);
 	}
 	
-	//Keyboard action handling
-	public void setJump(boolean jump) {
-		this.startJump = jump;
+	//Show or hide the developer overlay
+	public void toggleOverlay() {
+		overlay.toggle();
 	}
 	
-	public void setLeft(boolean left) {
-		this.left = left;
+	//Keyboard action handling, key is one of the InputState key bits
+	public void pressKey(int key) {
+		heldKeys |= key;
+		inputQueue.offer(key, true, System.nanoTime());
 	}
 	
-	public void setRight(boolean right) {
-		this.right = right;
+	public void releaseKey(int key) {
+		heldKeys &= ~key;
+		inputQueue.offer(key, false, System.nanoTime());
 	}
-}
\ No newline at end of file
+}
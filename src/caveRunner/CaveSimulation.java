@@ -0,0 +1,532 @@
+/*
+ * Name: Jack Whitman
+ * Description: The CaveSimulation class holds all of the game rules: player movement, physics, collisions, cave closing and opening, death, and cave generation. Timed events like the cave closing and opening are scheduled by game tick on a TimingWheel. The cave is either remade one screen at a time or, in endless mode, scrolls past a camera that follows the player. It only uses plain data so it can be stepped without any Swing components, and the game panel just renders its state.
+ */
+package caveRunner;
+
+public class CaveSimulation {
+	
+	//Constants
+	public final static int PANEL_WIDTH = 800;
+	public final static int PANEL_HEIGHT = 400;
+	public final static int TICK_MS = 10;
+	public final static int NO_ANIMATION = -1, IDLE = 0, RUN = 1, JUMP = 2;
+	private final static int JUMP_HEIGHT = 15;
+	private final static int WALK_SPEED = 4;
+	private final static double GRAVITY = -1;
+	private final static float CLOSE_TIME = 3.0f;
+	private final static float OPEN_TIME = 2.0f;
+	private final static int CAVE_INTERVAL = 10000;
+	private final static int FIRST_CAVE_DELAY = 5000;
+	private final static int SCREEN_COLUMNS = PANEL_WIDTH / CaveColumns.BLOCK_WIDTH;
+	private final static int ENDLESS_COLUMNS = SCREEN_COLUMNS + 4;
+	private final static int CAMERA_LEAD = PANEL_WIDTH / 3;
+	
+	//Timed event kinds, and the size of the wheel they are scheduled on
+	private final static int CAVE_CLOSE = 0, CAVE_OPEN = 1;
+	private final static int WHEEL_SLOTS = 256, WHEEL_EVENTS = 8;
+	
+	//Ints a saved tick takes besides the columns and timed events, with room to spare
+	private final static int SAVED_STATE_INTS = 40;
+	
+	//Instance vars for game components
+	private CaveColumns columns;
+	private CaveGenerator generator;
+	private CaveCollision collision;
+	private SimulationListener listener;
+	private DifficultyCurve curve;
+	private boolean endless, verbose;
+	private int cameraX, prevCameraX;
+	
+	//Instance vars for player state
+	private int plrX, plrY, prevPlrX, prevPlrY;
+	private int animation;
+	
+	//Instance vars for animation and movement
+	private boolean isOnGround, lastDirectionLeft;
+	private int nearestBlockIndex, vy, highestBlock, coordInBlock;
+	
+	//Instance vars for game handling
+	private int level, score, timeElapsedMs;
+	private float newOpenTime, newCloseTime;
+	private boolean isDead;
+	private DeathCause deathCause;
+	private long tick;
+	
+	//Cave closing instance vars
+	private CaveCycle cycle;
+	private float closure, prevClosure;
+	
+	//Timed event instance vars, the cave closes every caveInterval ms of game time counted from nextCloseMs
+	private TimingWheel scheduler;
+	private int caveInterval, closeEvent, openEvent;
+	private long nextCloseMs;
+	
+	public CaveSimulation(SimulationListener listener, boolean endless, long seed) {
+		this(listener, endless, seed, DifficultyCurve.DEFAULT);
+	}
+	
+	//Create a simulation that speeds up along a different difficulty curve
+	public CaveSimulation(SimulationListener listener, boolean endless, long seed, DifficultyCurve curve) {
+		//Set vars to default values
+		this.endless = endless;
+		this.curve = curve;
+		verbose = true;
+		generator = new CaveGenerator(seed);
+		level = score = timeElapsedMs = 0;
+		newOpenTime = OPEN_TIME;
+		newCloseTime = CLOSE_TIME;
+		this.listener = listener;
+		cycle = new CaveCycle();
+		closure = prevClosure = 0;
+		isOnGround = isDead = false;
+		deathCause = DeathCause.NONE;
+		animation = NO_ANIMATION;
+		nearestBlockIndex = 0;
+		lastDirectionLeft = false;
+		highestBlock = 0;
+		
+		//Create columns
+		columns = new CaveColumns(endless ? ENDLESS_COLUMNS : SCREEN_COLUMNS);
+		collision = new CaveCollision(columns);
+		generator.reset(columns, true);
+		fillColumns();
+		
+		//Place player
+		plrX = prevPlrX = 0;
+		plrY = prevPlrY = 200;
+		cameraX = prevCameraX = 0;
+		
+		//Schedule the first closing
+		scheduler = new TimingWheel(WHEEL_SLOTS, WHEEL_EVENTS);
+		closeEvent = openEvent = TimingWheel.NONE;
+		caveInterval = CAVE_INTERVAL;
+		scheduleClosing(FIRST_CAVE_DELAY);
+	}
+	
+	//Restart the game from the first level on the course for seed
+	public void restart(long seed) {
+		generator = new CaveGenerator(seed);
+		nearestBlockIndex = coordInBlock = vy = 0;
+		isDead = isOnGround = lastDirectionLeft = false;
+		deathCause = DeathCause.NONE;
+		animation = NO_ANIMATION;
+		tick = 0;
+		score = timeElapsedMs = 0;
+		cycle.reset();
+		closure = prevClosure = 0;
+		scheduler.clear();
+		closeEvent = openEvent = TimingWheel.NONE;
+		if (endless) {
+			restartEndless();
+			return;
+		}
+		level = -1;
+		regen();
+	}
+	
+	//Start the endless cave over from column 0
+	private void restartEndless() {
+		level = highestBlock = 0;
+		generator.reset(columns, true);
+		fillColumns();
+		plrX = prevPlrX = 0;
+		plrY = prevPlrY = 200;
+		cameraX = prevCameraX = 0;
+		caveInterval = updateDifficulty();
+		scheduleClosing(FIRST_CAVE_DELAY);
+	}
+	
+	//Advance the game by one tick
+	public void step(InputState input) {
+		boolean left = input.isLeft(), right = input.isRight(), startJump = input.isJump();
+		tick++;
+		animation = NO_ANIMATION;
+		prevPlrX = plrX;
+		prevPlrY = plrY;
+		prevCameraX = cameraX;
+		prevClosure = closure;
+		
+		//Run the events due this tick, then open and close cave
+		scheduler.advanceTo(tick);
+		for (int event = scheduler.poll(); event != TimingWheel.NONE; event = scheduler.poll())
+			runEvent(event);
+		cycle.update(TICK_MS);
+		closure = cycle.getClosure();
+		
+		//Update timing
+		timeElapsedMs += TICK_MS;
+		
+		//Local vars for position
+		int blockY = columns.getFloorY(nearestBlockIndex);
+		boolean hasNext = columns.has(nearestBlockIndex + 1), hasPrev = columns.has(nearestBlockIndex - 1);
+		
+		//Local vars for movement restrictions
+		boolean canLeft = true, canRight = true, canJump = true;
+		boolean nextBlockJump = (coordInBlock >= CaveColumns.BLOCK_WIDTH / 2 && (hasNext ? columns.isJumpBlock(nearestBlockIndex + 1) && !columns.isCutoffJumpBlock(nearestBlockIndex + 1) : false));
+		boolean prevBlockGap = (coordInBlock < CaveColumns.BLOCK_WIDTH / 2 && (hasPrev ? columns.isGap(nearestBlockIndex - 1) : false));
+		boolean nextBlockGap = (coordInBlock >= CaveColumns.BLOCK_WIDTH / 2 && (hasNext ? columns.isGap(nearestBlockIndex + 1) : false));
+		boolean closedBelowHead = closure > CaveColumns.SEPARATION - Player.CHAR_HEIGHT + 10;
+		
+		//Instance var updates
+		boolean wasOnGround = isOnGround;
+		int prevBlockIndex = nearestBlockIndex;
+		isOnGround = plrY + Player.CHAR_HEIGHT >= blockY;
+		nearestBlockIndex = (plrX + Player.CHAR_WIDTH / 2) / CaveColumns.BLOCK_WIDTH;
+		coordInBlock = (plrX + Player.CHAR_WIDTH / 2) % CaveColumns.BLOCK_WIDTH;
+		if (isOnGround && !wasOnGround) listener.playerLanded(plrX + Player.CHAR_WIDTH / 2, blockY, vy);
+		if (nearestBlockIndex != prevBlockIndex) stepCrossed(prevBlockIndex, nearestBlockIndex);
+		
+		//Gravity, swept so a fast fall lands on the floor instead of passing through it
+		if (!isOnGround) {
+			vy -= GRAVITY;
+			moveY(vy);
+		}
+		
+		//Figure out score
+		if (nearestBlockIndex > highestBlock) {
+			highestBlock = nearestBlockIndex;
+			score++;
+			listener.scoreIncreased();
+			
+			//Speed up every screen's worth of columns in endless mode
+			if (endless && highestBlock % SCREEN_COLUMNS == 0) levelUp();
+		}
+		
+		//Regenerate if at end
+		if (!endless && nearestBlockIndex >= columns.getEnd()) {
+			nearestBlockIndex = 0;
+			regen();
+		}
+		
+		//Block player from jumping if they are past a fall block
+		if (columns.isFallBlock(nearestBlockIndex) && coordInBlock < CaveColumns.BLOCK_WIDTH / 2) canJump = false;
+		
+		//Move player up to the ground
+		if (!nextBlockJump && columns.has(nearestBlockIndex)) plrY = collision.resolveFloor(nearestBlockIndex, plrY);
+		
+		//Prevent movement outside of gaps when cave is closed
+		if (columns.isGap(nearestBlockIndex) && closedBelowHead) {
+			canLeft = canRight = false;
+			if (prevBlockGap || coordInBlock > 10) canLeft = true;
+			if (nextBlockGap || coordInBlock < CaveColumns.BLOCK_WIDTH - 10) canRight = true;
+		}
+		
+		//Check if player should be dead
+		if (!columns.isGap(nearestBlockIndex) && closedBelowHead && !isDead) {
+			scheduler.cancel(closeEvent);
+			isDead = true;
+			deathCause = !isOnGround ? DeathCause.IN_AIR : isNextToGap(nearestBlockIndex) ? DeathCause.MISSED_GAP : DeathCause.CRUSHED;
+			listener.playerDied();
+		}
+		
+		//Ceiling collisions
+		if (plrY + 5 < collision.getCeilingY(nearestBlockIndex, closure) && !closedBelowHead) {
+			vy = 0;
+			plrY = collision.resolveCeiling(nearestBlockIndex, closure, plrY);
+		}
+		
+		//Jump, move left, and move right, with animations
+		if (startJump == true && isOnGround && canJump) {
+			vy = -JUMP_HEIGHT;
+			moveY(-JUMP_HEIGHT);
+		}
+		
+		if (!isOnGround) animation = JUMP;
+		
+		//Walking is swept against jump and fall blocks, the player is blocked if they cannot move at all
+		if (left == true && canLeft && plrX > cameraX - 30) {
+			int movedX = collision.sweepLeft(plrX + Player.CHAR_WIDTH / 2, WALK_SPEED) - Player.CHAR_WIDTH / 2;
+			canLeft = movedX != plrX;
+			if (canLeft) {
+				if (isOnGround) animation = RUN;
+				plrX = movedX;
+				lastDirectionLeft = true;
+			}
+		}
+		
+		if (right == true && canRight) {
+			int movedX = collision.sweepRight(plrX + Player.CHAR_WIDTH / 2, plrY, WALK_SPEED) - Player.CHAR_WIDTH / 2;
+			canRight = movedX != plrX;
+			if (canRight) {
+				if (isOnGround) animation = RUN;
+				plrX = movedX;
+				lastDirectionLeft = false;
+			}
+		}
+		
+		//Idle animation
+		if (isOnGround && (!startJump && !left && !right || ((left && !canLeft) || (right && !canRight)))) animation = IDLE;
+		
+		//Follow the player and generate the columns coming into view
+		if (endless) {
+			cameraX = Math.max(cameraX, plrX + Player.CHAR_WIDTH / 2 - CAMERA_LEAD);
+			fillColumns();
+		}
+	}
+	
+	//Create a buffer that can rewind the last ticks ticks of this simulation
+	public RewindBuffer createRewindBuffer(int ticks) {
+		return new RewindBuffer(ticks, SAVED_STATE_INTS + scheduler.getSavedInts() + columns.getSavedInts());
+	}
+	
+	//Save everything the next step depends on, called after each step
+	public void save(RewindBuffer rewind) {
+		rewind.beginWrite(tick);
+		rewind.putInt(plrX);
+		rewind.putInt(plrY);
+		rewind.putInt(vy);
+		rewind.putInt(nearestBlockIndex);
+		rewind.putInt(coordInBlock);
+		rewind.putInt(highestBlock);
+		rewind.putInt(cameraX);
+		rewind.putInt(level);
+		rewind.putInt(score);
+		rewind.putInt(timeElapsedMs);
+		rewind.putFloat(newOpenTime);
+		rewind.putFloat(newCloseTime);
+		rewind.putBoolean(isOnGround);
+		rewind.putBoolean(lastDirectionLeft);
+		rewind.putInt(caveInterval);
+		rewind.putInt(closeEvent);
+		rewind.putInt(openEvent);
+		rewind.putLong(nextCloseMs);
+		cycle.save(rewind);
+		scheduler.save(rewind);
+		generator.save(rewind);
+		columns.save(rewind);
+	}
+	
+	//Go back to the state saved ticksBack ticks ago, or the oldest one saved, with the player alive, and return its tick
+	public long restore(RewindBuffer rewind, int ticksBack) {
+		tick = rewind.beginRead(ticksBack);
+		plrX = prevPlrX = rewind.getInt();
+		plrY = prevPlrY = rewind.getInt();
+		vy = rewind.getInt();
+		nearestBlockIndex = rewind.getInt();
+		coordInBlock = rewind.getInt();
+		highestBlock = rewind.getInt();
+		cameraX = prevCameraX = rewind.getInt();
+		level = rewind.getInt();
+		score = rewind.getInt();
+		timeElapsedMs = rewind.getInt();
+		newOpenTime = rewind.getFloat();
+		newCloseTime = rewind.getFloat();
+		isOnGround = rewind.getBoolean();
+		lastDirectionLeft = rewind.getBoolean();
+		caveInterval = rewind.getInt();
+		closeEvent = rewind.getInt();
+		openEvent = rewind.getInt();
+		nextCloseMs = rewind.getLong();
+		cycle.restore(rewind);
+		scheduler.restore(rewind);
+		generator.restore(rewind);
+		columns.restore(rewind);
+		
+		//Nothing in between the two ticks is drawn from, and a rewound player is alive again
+		closure = prevClosure = cycle.getClosure();
+		isDead = false;
+		deathCause = DeathCause.NONE;
+		animation = NO_ANIMATION;
+		return tick;
+	}
+	
+	//Generate columns until the screen is covered, plus one more to look ahead into
+	private void fillColumns() {
+		int lastColumn = (cameraX + PANEL_WIDTH) / CaveColumns.BLOCK_WIDTH + 1;
+		if (!endless) lastColumn = SCREEN_COLUMNS - 1;
+		while (columns.getEnd() <= lastColumn)
+			generator.generateNext(columns);
+	}
+	
+	//Exponential equations for cave interval and new open and close time
+	private int updateDifficulty() {
+		newCloseTime = curve.getCloseTime(level);
+		newOpenTime = curve.getOpenTime(level);
+		return curve.getInterval(level);
+	}
+	
+	private void printDifficulty(int newCaveInterval) {
+		if (!verbose) return;
+		System.out.println("\nNew Interval: " + newCaveInterval);
+		System.out.println("New Open Time: " + newOpenTime);
+		System.out.println("New Close Time: " + newCloseTime);
+	}
+	
+	//Speed up the endless cave without remaking it, the new times apply from the next closing
+	private void levelUp() {
+		level++;
+		caveInterval = updateDifficulty();
+		printDifficulty(caveInterval);
+	}
+	
+	//Regenerate
+	private void regen() {
+		//Reset vars and move player
+		level++;
+		highestBlock = 0;
+		plrX = prevPlrX = -Player.CHAR_WIDTH/2;
+		plrY = prevPlrY = 200;
+		
+		
+		//Exponential equations for cave interval and new open and close time
+		int newCaveInterval = updateDifficulty();
+		int nextInterval = newCaveInterval - timeElapsedMs;
+		
+		//Speed up game, the next closing stays the same time after the last one started
+		caveInterval = newCaveInterval;
+		scheduleClosing(nextInterval > 0 ? nextInterval : 1);
+		
+		//Remake columns, the cave keeps closing or opening where it was
+		generator.reset(columns, level == 0);
+		fillColumns();
+		
+		listener.caveRegenerated();
+		printDifficulty(newCaveInterval);
+	}
+	
+	//Close the cave delayMs from now, replacing the closing already scheduled
+	private void scheduleClosing(int delayMs) {
+		scheduler.cancel(closeEvent);
+		nextCloseMs = tick * TICK_MS + delayMs;
+		closeEvent = scheduler.schedule(closingTick(), CAVE_CLOSE);
+	}
+	
+	//First tick at or after nextCloseMs, so closings stay in step with game time when the interval is not a whole number of ticks
+	private long closingTick() {
+		return Math.max(tick + 1, -Math.floorDiv(-nextCloseMs, TICK_MS));
+	}
+	
+	//Run one timed event
+	private void runEvent(int event) {
+		switch (event) {
+			case CAVE_CLOSE:
+				closeCave();
+				break;
+			case CAVE_OPEN:
+				openEvent = TimingWheel.NONE;
+				listener.caveOpening();
+				break;
+		}
+	}
+	
+	//Start closing the cave, then schedule when it starts opening and the next closing
+	private void closeCave() {
+		timeElapsedMs = 0;
+		cycle.start(newCloseTime, newOpenTime);
+		listener.caveClosing();
+		
+		//This tick's update counts toward closing, so the cave is closed one tick sooner than the cycle's count
+		scheduler.cancel(openEvent);
+		openEvent = scheduler.schedule(tick + Math.max(1, cycle.getTicksUntilClosed(TICK_MS) - 1), CAVE_OPEN);
+		nextCloseMs += caveInterval;
+		closeEvent = scheduler.schedule(closingTick(), CAVE_CLOSE);
+	}
+	
+	//Tell the listener if the player moved between two columns with floors at different heights
+	private void stepCrossed(int from, int to) {
+		if (!columns.has(from) || !columns.has(to)) return;
+		int fromY = columns.getFloorY(from), toY = columns.getFloorY(to);
+		if (fromY != toY) listener.playerCrossedStep(columns.getX(Math.max(from, to)), Math.min(fromY, toY));
+	}
+	
+	//A gap is right next to a column
+	private boolean isNextToGap(int column) {
+		return columns.has(column - 1) && columns.isGap(column - 1) || columns.has(column + 1) && columns.isGap(column + 1);
+	}
+	
+	//Move the player up or down, stopping at the floor or ceiling, and lose upward speed if they hit the ceiling
+	private void moveY(int dy) {
+		int movedY = collision.sweepY(nearestBlockIndex, closure, plrY, dy);
+		if (dy < 0 && movedY != plrY + dy) vy = 0;
+		plrY = movedY;
+	}
+	
+	//Getter methods
+	public CaveColumns getColumns() {
+		return columns;
+	}
+	
+	//Left edge of the visible part of the world
+	public int getCameraX(float alpha) {
+		return Math.round(prevCameraX + (cameraX - prevCameraX) * alpha);
+	}
+	
+	public long getSeed() {
+		return generator.getSeed();
+	}
+	
+	//How far the cave has closed between the last two ticks
+	public float getClosure(float alpha) {
+		return prevClosure + (closure - prevClosure) * alpha;
+	}
+	
+	//Print each level's new times, on by default
+	public void setVerbose(boolean verbose) {
+		this.verbose = verbose;
+	}
+	
+	public boolean isEndless() {
+		return endless;
+	}
+	
+	public int getPlayerX() {
+		return plrX;
+	}
+	
+	public int getPlayerY() {
+		return plrY;
+	}
+	
+	//Player position between the last two ticks, alpha goes from 0 at the previous tick to 1 at this one
+	public int getPlayerX(float alpha) {
+		return Math.round(prevPlrX + (plrX - prevPlrX) * alpha);
+	}
+	
+	public int getPlayerY(float alpha) {
+		return Math.round(prevPlrY + (plrY - prevPlrY) * alpha);
+	}
+	
+	//How far the player has run in total, used to scroll the background
+	public float getDistance(float alpha) {
+		return endless ? getCameraX(alpha) : level * PANEL_WIDTH + getPlayerX(alpha);
+	}
+	
+	//Animation the player asked for this tick, or NO_ANIMATION if none
+	public int getAnimation() {
+		return animation;
+	}
+	
+	public boolean isFacingBack() {
+		return lastDirectionLeft;
+	}
+	
+	//The cave is closing and has not finished closing yet
+	public boolean isCaveClosing() {
+		return cycle.isActive() && !cycle.isClosed();
+	}
+	
+	public boolean isOnGround() {
+		return isOnGround;
+	}
+	
+	public boolean isDead() {
+		return isDead;
+	}
+	
+	public DeathCause getDeathCause() {
+		return deathCause;
+	}
+	
+	public int getLevel() {
+		return level;
+	}
+	
+	public int getScore() {
+		return score;
+	}
+	
+	public long getTick() {
+		return tick;
+	}
+}
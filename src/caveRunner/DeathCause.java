@@ -0,0 +1,16 @@
+/*
+ * Name: Jack Whitman
+ * Description: The DeathCause enum records why a game ended, so replays and bots can tell a player who was caught far from a gap from one who only just missed it or was caught mid-jump.
+ */
+package caveRunner;
+
+public enum DeathCause {
+	//Still alive
+	NONE,
+	//Crushed by the cave with no gap next to them
+	CRUSHED,
+	//Crushed by the cave in a column next to a gap
+	MISSED_GAP,
+	//Crushed by the cave while jumping or falling, usually after a missed jump
+	IN_AIR
+}
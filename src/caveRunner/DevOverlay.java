@@ -0,0 +1,131 @@
+/*
+ * Name: Jack Whitman
+ * Description: The DevOverlay class is a developer overlay drawn over the game, toggled with F3. It shows percentiles of simulation tick time, render time, and how long each frame waited in the event queue, along with heap use, garbage collections, and how many frames went over their time budget. The text is only rebuilt a few times a second so the overlay barely adds to what it measures.
+ */
+package caveRunner;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import javax.swing.JComponent;
+
+@SuppressWarnings("serial")
+public class DevOverlay extends JComponent {
+	//Constants
+	private final static long REFRESH_NANOS = 250_000_000L;
+	private final static Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+	private final static Color BACKGROUND_COLOR = new Color(0, 0, 0, 160);
+	private final static Color OVER_BUDGET_COLOR = new Color(255, 90, 90);
+	private final static int LINE_HEIGHT = 14, PADDING = 6, WIDTH = 330;
+	
+	//Timings
+	private TimingHistogram tickTimes, renderTimes, queueDelays;
+	
+	//Budget instance vars
+	private long overBudgetFrames;
+	private boolean lastFrameOverBudget;
+	
+	//Text instance vars
+	private String[] lines;
+	private long lastRefresh;
+	
+	public DevOverlay() {
+		tickTimes = new TimingHistogram("tick");
+		renderTimes = new TimingHistogram("render");
+		queueDelays = new TimingHistogram("edt");
+		lines = new String[0];
+		setBounds(0, 0, WIDTH, LINE_HEIGHT * 5 + PADDING * 2);
+		setVisible(false);
+	}
+	
+	//Record one simulation tick, called from the simulation thread
+	public void recordTick(long nanos) {
+		tickTimes.record(nanos);
+	}
+	
+	//Record drawing one frame
+	public void recordRender(long nanos) {
+		renderTimes.record(nanos);
+	}
+	
+	//Record the end of a frame, it is over budget if drawing it took longer than the time between frames
+	public void endFrame(long queueDelayNanos, long renderNanos, long budgetNanos) {
+		queueDelays.record(queueDelayNanos);
+		lastFrameOverBudget = renderNanos > budgetNanos;
+		if (lastFrameOverBudget) overBudgetFrames++;
+		
+		//Rebuild the text a few times a second
+		long now = System.nanoTime();
+		if (isVisible() && now - lastRefresh > REFRESH_NANOS) {
+			lastRefresh = now;
+			refresh();
+			repaint();
+		}
+	}
+	
+	private void refresh() {
+		Runtime runtime = Runtime.getRuntime();
+		long gcCount = 0, gcMillis = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			gcCount += Math.max(gc.getCollectionCount(), 0);
+			gcMillis += Math.max(gc.getCollectionTime(), 0);
+		}
+		
+		lines = new String[] {
+			describe(tickTimes),
+			describe(renderTimes),
+			describe(queueDelays),
+			String.format(Locale.ROOT, "heap   %d / %d MB  gc %d (%d ms)", (runtime.totalMemory() - runtime.freeMemory()) >> 20, runtime.maxMemory() >> 20, gcCount, gcMillis),
+			"over budget frames: " + overBudgetFrames
+		};
+	}
+	
+	//One line of percentiles in milliseconds
+	private static String describe(TimingHistogram histogram) {
+		long[] p = histogram.percentiles(50, 99, 100);
+		return String.format(Locale.ROOT, "%-6s p50 %6.2f  p99 %6.2f  max %6.2f ms", histogram.getName(), p[0] / 1e6, p[1] / 1e6, p[2] / 1e6);
+	}
+	
+	//Show or hide the overlay
+	public void toggle() {
+		setVisible(!isVisible());
+		lastRefresh = 0;
+	}
+	
+	protected void paintComponent(Graphics g) {
+		draw((Graphics2D) g);
+	}
+	
+	//Draw the overlay in the top left corner, the canvas renderer calls this directly
+	public void draw(Graphics2D g) {
+		if (!isVisible()) return;
+		g.setColor(BACKGROUND_COLOR);
+		g.fillRect(0, 0, getWidth(), getHeight());
+		g.setFont(FONT);
+		g.setColor(lastFrameOverBudget ? OVER_BUDGET_COLOR : Color.WHITE);
+		for (int i = 0; i < lines.length; i++)
+			g.drawString(lines[i], PADDING, PADDING + LINE_HEIGHT * (i + 1) - 3);
+	}
+	
+	//Write every histogram to a CSV file
+	public void writeCsv(String path) {
+		try (FileWriter writer = new FileWriter(path)) {
+			writer.write("metric,from_us,to_us,count\n");
+			tickTimes.writeCsv(writer);
+			renderTimes.writeCsv(writer);
+			queueDelays.writeCsv(writer);
+		} catch (IOException e) {
+			System.out.println("File error occured. Stats were not saved to " + path);
+		}
+	}
+	
+	//Getter methods
+	public TimingHistogram getRenderTimes() {
+		return renderTimes;
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Name: Jack Whitman
+ * Description: The DifficultyCurve class holds the constants of the exponential equations that speed the cave up each level. Every time shrinks by the same decay factor per level toward its minimum, and the shift sets how large the time starts out. The default curve is the one the game has always used, and copies with one constant changed let the self-play harness sweep them.
+ */
+package caveRunner;
+import java.util.Locale;
+
+public class DifficultyCurve {
+	//Names of the constants, in the order they are stored
+	public final static String[] NAMES = {"decay", "closeShift", "closeMin", "openShift", "openMin", "intervalShift", "intervalMin"};
+	
+	//The game's curve
+	public final static DifficultyCurve DEFAULT = new DifficultyCurve(new double[] {0.95, 17.864, 0.5, 10.34, 0.3, 172.61, 3000});
+	
+	//Instance vars
+	private double[] values;
+	
+	private DifficultyCurve(double[] values) {
+		this.values = values;
+	}
+	
+	//Seconds the cave takes to close at a level
+	public float getCloseTime(int level) {
+		return (float)Math.pow(values[0], level - values[1]) + (float)values[2];
+	}
+	
+	//Seconds the cave takes to open at a level
+	public float getOpenTime(int level) {
+		return (float)Math.pow(values[0], level - values[3]) + (float)values[4];
+	}
+	
+	//Milliseconds from the cave starting to close to it starting to close again at a level
+	public int getInterval(int level) {
+		return (int)Math.pow(values[0], level - values[5]) + (int)values[6];
+	}
+	
+	//Copy of this curve with one constant changed
+	public DifficultyCurve with(String name, double value) {
+		for (int i = 0; i < NAMES.length; i++) {
+			if (!NAMES[i].equals(name)) continue;
+			double[] copy = values.clone();
+			copy[i] = value;
+			return new DifficultyCurve(copy);
+		}
+		throw new IllegalArgumentException("Unknown difficulty constant " + name + ", expected one of " + String.join(", ", NAMES));
+	}
+	
+	public String toString() {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < NAMES.length; i++)
+			text.append(i == 0 ? "" : " ").append(NAMES[i]).append('=').append(String.format(Locale.ROOT, "%.5g", values[i]));
+		return text.toString();
+	}
+}
@@ -0,0 +1,125 @@
+/*
+ * Name: Jack Whitman
+ * Description: The GameLoop class runs the game on two threads. The simulation thread measures real time with System.nanoTime, adds it to an accumulator, and runs as many fixed simulation steps as fit, so game speed does not depend on the frame rate. The frame thread asks the event dispatch thread to draw once per frame. Neither thread waits for the other, so a slow frame does not hold up the simulation and a slow step does not hold up drawing.
+ */
+package caveRunner;
+import java.awt.EventQueue;
+import java.awt.GraphicsEnvironment;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.locks.LockSupport;
+
+public class GameLoop {
+	//Constants
+	private final static long MAX_FRAME_NANOS = 250_000_000L;
+	private final static int DEFAULT_FPS = 60;
+	
+	//What the loop runs
+	public interface Game {
+		//Advance the game by one fixed step, called on the simulation thread
+		void tick();
+		
+		//Draw the latest state of the game, called on the event dispatch thread
+		void render();
+	}
+	
+	//Instance vars
+	private Game game;
+	private long stepNanos, frameNanos;
+	private volatile long queueDelayNanos;
+	private volatile int generation;
+	private volatile boolean running;
+	
+	//Create a loop that steps the game every stepNanos and renders fps times a second, 0 to match the display
+	public GameLoop(Game game, long stepNanos, int fps) {
+		this.game = game;
+		this.stepNanos = stepNanos;
+		if (fps <= 0) fps = displayRefreshRate();
+		frameNanos = 1_000_000_000L / fps;
+	}
+	
+	//Refresh rate of the screen, or a default if it is unknown
+	private static int displayRefreshRate() {
+		if (GraphicsEnvironment.isHeadless()) return DEFAULT_FPS;
+		int rate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+		return rate > 0 ? rate : DEFAULT_FPS;
+	}
+	
+	//Start the simulation and frame threads, stopping any old ones
+	public void start() {
+		int myGeneration = ++generation;
+		running = true;
+		startThread("Simulation", () -> simulate(myGeneration));
+		startThread("Frames", () -> present(myGeneration));
+	}
+	
+	private static void startThread(String name, Runnable task) {
+		Thread thread = new Thread(task, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	//Stop both threads, safe to call from the game itself
+	public void stop() {
+		running = false;
+		generation++;
+	}
+	
+	public boolean isRunning() {
+		return running;
+	}
+	
+	//Time between frames
+	public long getFrameNanos() {
+		return frameNanos;
+	}
+	
+	//Time between simulation steps
+	public long getStepNanos() {
+		return stepNanos;
+	}
+	
+	//How long the current frame waited on the event queue before it started
+	public long getQueueDelayNanos() {
+		return queueDelayNanos;
+	}
+	
+	//Run every step that fits in the time that passed, then sleep until the next step is due
+	private void simulate(int myGeneration) {
+		long previous = System.nanoTime(), accumulator = 0;
+		while (running && generation == myGeneration) {
+			//Add the real time that passed, capped so a long stall does not run hundreds of steps
+			long now = System.nanoTime();
+			accumulator += Math.min(now - previous, MAX_FRAME_NANOS);
+			previous = now;
+			
+			while (accumulator >= stepNanos && generation == myGeneration) {
+				game.tick();
+				accumulator -= stepNanos;
+			}
+			
+			long wait = stepNanos - accumulator - (System.nanoTime() - previous);
+			if (wait > 0) LockSupport.parkNanos(wait);
+		}
+	}
+	
+	//Draw a frame on the event dispatch thread, then sleep until the next frame is due
+	private void present(int myGeneration) {
+		while (running && generation == myGeneration) {
+			long start = System.nanoTime();
+			try {
+				EventQueue.invokeAndWait(() -> {
+					queueDelayNanos = System.nanoTime() - start;
+					if (generation == myGeneration) game.render();
+				});
+			} catch (InterruptedException e) {
+				return;
+			} catch (InvocationTargetException e) {
+				e.getCause().printStackTrace();
+				return;
+			}
+			
+			long wait = start + frameNanos - System.nanoTime();
+			if (wait > 0) LockSupport.parkNanos(wait);
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Name: Jack Whitman
+ * Description: The GameSession class is one game as the simulation thread plays it: the CaveSimulation, the InputQueue its keys come through, the Replay it is recorded into, the RewindBuffer that keeps its last few seconds, and the SnapshotBuffer it is published through. Its step is the whole of one tick, so the game panel and the allocation budget check play the same sequence and cannot drift apart.
+ */
+package caveRunner;
+
+public class GameSession {
+	//Constants
+	public final static int REWIND_TICKS = 5000 / CaveSimulation.TICK_MS;
+	
+	//Instance vars for the game and what it is played and recorded through
+	private CaveSimulation sim;
+	private InputState input;
+	private InputQueue inputQueue;
+	private Replay replay;
+	private RewindBuffer rewind;
+	private SnapshotBuffer snapshots;
+	
+	//Create the first game of a session, listener hears the simulation's events
+	public GameSession(SimulationListener listener, boolean endless, long seed) {
+		sim = new CaveSimulation(listener, endless, seed);
+		input = new InputState();
+		inputQueue = new InputQueue();
+		replay = new Replay(seed, endless, false);
+		snapshots = new SnapshotBuffer(sim.getColumns().getCapacity());
+		snapshots.publish(sim);
+		
+		//Keep the last few seconds so a death can be rewound
+		rewind = sim.createRewindBuffer(REWIND_TICKS + 1);
+		sim.save(rewind);
+	}
+	
+	//Play one tick: take the keys due by it, record them, step, save the step for rewinding, and publish it, returns how long the step itself took in nanoseconds
+	public long step() {
+		inputQueue.drainTo(input, sim.getTick() + 1);
+		replay.record(input.getBits());
+		long start = System.nanoTime();
+		sim.step(input);
+		sim.save(rewind);
+		long stepNanos = System.nanoTime() - start;
+		input.clearTaps();
+		snapshots.publish(sim);
+		return stepNanos;
+	}
+	
+	//Start a new game on seed, recorded into the same replay once the last game's is saved, with nothing to rewind to
+	public void restart(long seed) {
+		sim.restart(seed);
+		replay.reset(seed, sim.isEndless(), true);
+		rewind.clear();
+		sim.save(rewind);
+	}
+	
+	//Go back to the tick saved ticksBack saves ago and cut the replay there, returns the tick
+	public long rewind(int ticksBack) {
+		long tick = sim.restore(rewind, ticksBack);
+		replay.truncate((int) tick);
+		return tick;
+	}
+	
+	//Carry on after a restart or rewind, dropping queued key events and starting from the keys in heldKeys
+	public void resume(int heldKeys) {
+		inputQueue.clear();
+		input.setBits(heldKeys);
+		snapshots.publish(sim);
+	}
+	
+	//Getter methods
+	public CaveSimulation getSimulation() {
+		return sim;
+	}
+	
+	public InputQueue getInputQueue() {
+		return inputQueue;
+	}
+	
+	public Replay getReplay() {
+		return replay;
+	}
+	
+	public SnapshotBuffer getSnapshots() {
+		return snapshots;
+	}
+}
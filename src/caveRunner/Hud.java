@@ -0,0 +1,164 @@
+/*
+ * Name: Jack Whitman
+ * Description: The Hud class draws the score, high score, and level over the game, and the lose screen once the player dies. Fonts and text are laid out once, and the score line is put together from prebuilt labels and digits when a value changes, so a score change does not allocate and drawing the HUD every frame is just a few draw calls. The component renderer shows it as a component that repaints only its text, and the canvas renderer draws it into each frame.
+ */
+package caveRunner;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+import javax.swing.JComponent;
+
+@SuppressWarnings("serial")
+public class Hud extends JComponent {
+	//Constants
+	private final static Font SCORE_FONT = new Font(Font.SANS_SERIF, Font.BOLD, 16);
+	private final static Font LOST_FONT = new Font("Segoe UI", Font.BOLD, 50);
+	private final static Font AGAIN_FONT = new Font("Comic Sans MS", Font.ITALIC, 30);
+	private final static Font CREDITS_FONT = new Font("Comic Sans MS", Font.PLAIN, 10);
+	private final static FontRenderContext FRC = new FontRenderContext(null, true, true);
+	private final static Color SHADOW_COLOR = new Color(0, 0, 0, 170);
+	private final static Color DIM_COLOR = new Color(0, 0, 0, 110);
+	private final static int MARGIN = 10, SCORE_HEIGHT = 24;
+	
+	//Lose screen text, laid out once
+	private final static TextLayout LOST_TEXT = new TextLayout("You lost...", LOST_FONT, FRC);
+	private final static TextLayout AGAIN_TEXT = new TextLayout("Press Start to Play Again", AGAIN_FONT, FRC);
+	private final static TextLayout REWIND_TEXT = new TextLayout("or Press R to Rewind 5 Seconds", CREDITS_FONT.deriveFont(16f), FRC);
+	private final static TextLayout CREDITS_TEXT = new TextLayout("thank you for playing! Cave Runner by Jack Whitman, APCS Final Project", CREDITS_FONT, FRC);
+	
+	//Score line pieces, laid out once and put together for each value so a score change does not allocate
+	private final static TextLayout SCORE_LABEL = new TextLayout("Score: ", SCORE_FONT, FRC);
+	private final static TextLayout HIGHSCORE_LABEL = new TextLayout("   Highscore: ", SCORE_FONT, FRC);
+	private final static TextLayout LEVEL_LABEL = new TextLayout("   Level ", SCORE_FONT, FRC);
+	private final static TextLayout MINUS = new TextLayout("-", SCORE_FONT, FRC);
+	private final static TextLayout[] DIGITS = new TextLayout[10];
+	private final static int MAX_PIECES = 3 + 3 * 11;
+	static {
+		for (int d = 0; d < DIGITS.length; d++)
+			DIGITS[d] = new TextLayout(Integer.toString(d), SCORE_FONT, FRC);
+	}
+	
+	//Values shown, -1 until known
+	private int score = -1, highscore = -1, storedHighscore = -1, level = -1;
+	private boolean lost, rewindAvailable;
+	
+	//Score line, the pieces in order and where each one starts, laid out again only when a value changes
+	private TextLayout[] pieces = new TextLayout[MAX_PIECES];
+	private float[] pieceX = new float[MAX_PIECES];
+	private int pieceCount;
+	private float advance;
+	private int scoreX, scoreWidth;
+	
+	//Create the HUD showing the score and level the game starts on
+	public Hud(int score, int level) {
+		setBounds(0, 0, CaveSimulation.PANEL_WIDTH, CaveSimulation.PANEL_HEIGHT);
+		update(score, level);
+	}
+	
+	//Show the current score and level, does nothing unless one of them changed
+	public void update(int score, int level) {
+		if (score == this.score && level == this.level) return;
+		this.score = score;
+		this.level = level;
+		layoutScore();
+	}
+	
+	//Show the best score of the saved games, -1 hides it, a game only counts once it is saved so a rewound game is not counted twice
+	public void setHighScore(int storedHighscore) {
+		this.storedHighscore = storedHighscore;
+		layoutScore();
+	}
+	
+	//Show or hide the lose screen
+	public void setLost(boolean lost) {
+		if (this.lost == lost) return;
+		this.lost = lost;
+		repaint();
+	}
+	
+	//Offer a rewind on the lose screen
+	public void setRewindAvailable(boolean rewindAvailable) {
+		this.rewindAvailable = rewindAvailable;
+	}
+	
+	//Lay out the score line in the top right corner and repaint where it was and where it is now
+	private void layoutScore() {
+		highscore = storedHighscore < 0 ? -1 : Math.max(storedHighscore, score);
+		pieceCount = 0;
+		advance = 0;
+		addPiece(SCORE_LABEL);
+		addNumber(score);
+		if (highscore >= 0) {
+			addPiece(HIGHSCORE_LABEL);
+			addNumber(highscore);
+		}
+		addPiece(LEVEL_LABEL);
+		addNumber(level);
+		
+		int oldX = scoreX, oldWidth = scoreWidth;
+		scoreWidth = (int) Math.ceil(advance) + 2;
+		scoreX = CaveSimulation.PANEL_WIDTH - MARGIN - scoreWidth;
+		if (oldWidth > 0) repaint(oldX, 0, oldWidth, SCORE_HEIGHT);
+		repaint(scoreX, 0, scoreWidth, SCORE_HEIGHT);
+	}
+	
+	//Add a piece to the end of the score line
+	private void addPiece(TextLayout piece) {
+		pieces[pieceCount] = piece;
+		pieceX[pieceCount++] = advance;
+		advance += piece.getAdvance();
+	}
+	
+	//Add a number one digit at a time, from the highest digit down
+	private void addNumber(int value) {
+		if (value < 0) addPiece(MINUS);
+		long n = Math.abs((long) value), place = 1;
+		while (place * 10 <= n)
+			place *= 10;
+		for (; place > 0; place /= 10)
+			addPiece(DIGITS[(int) (n / place % 10)]);
+	}
+	
+	protected void paintComponent(Graphics g) {
+		draw((Graphics2D) g);
+	}
+	
+	//Draw the HUD over the game, the canvas renderer calls this directly
+	public void draw(Graphics2D g) {
+		Object oldAntialiasing = g.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		
+		//Score line with a shadow so it shows on light and dark blocks
+		float baseline = MARGIN + SCORE_LABEL.getAscent();
+		g.setColor(SHADOW_COLOR);
+		drawScore(g, scoreX + 1, baseline + 1);
+		g.setColor(Color.WHITE);
+		drawScore(g, scoreX, baseline);
+		
+		//Lose screen over the dimmed cave
+		if (lost) {
+			g.setColor(DIM_COLOR);
+			g.fillRect(0, 0, CaveSimulation.PANEL_WIDTH, CaveSimulation.PANEL_HEIGHT);
+			g.setColor(Color.red);
+			LOST_TEXT.draw(g, 283, 233);
+			g.setColor(Color.green);
+			AGAIN_TEXT.draw(g, 223, 273);
+			if (rewindAvailable) {
+				g.setColor(Color.yellow);
+				REWIND_TEXT.draw(g, 223, 296);
+			}
+			g.setColor(Color.gray);
+			CREDITS_TEXT.draw(g, 223, rewindAvailable ? 316 : 293);
+		}
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, oldAntialiasing);
+	}
+	
+	private void drawScore(Graphics2D g, float x, float baseline) {
+		for (int i = 0; i < pieceCount; i++)
+			pieces[i].draw(g, x + pieceX[i], baseline);
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Name: Jack Whitman
+ * Description: The Images class loads image files and creates images in the screen's own format, so sprites and backgrounds can be drawn without being converted on every paint. Scaled images are copied from the asset pack when it has them, which skips decoding and scaling the PNG files at startup.
+ */
+package caveRunner;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import javax.imageio.ImageIO;
+
+public class Images {
+	//Constants
+	public final static String PACK_FILE = System.getProperty("caverunner.assets", "assets.pack");
+	
+	//The asset pack, opened on first use
+	private static AssetPack pack;
+	private static boolean packOpened;
+	
+	//Builder that every scaled image is added to while the pack is being built
+	private static AssetPack.Builder recorder;
+	
+	//Create an image the screen can draw without converting it
+	public static BufferedImage createCompatible(int width, int height, int transparency) {
+		if (GraphicsEnvironment.isHeadless())
+			return new BufferedImage(width, height, transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+		return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration().createCompatibleImage(width, height, transparency);
+	}
+	
+	//Decode an image file, returns null if it cannot be read
+	public static BufferedImage load(String path) {
+		try {
+			return ImageIO.read(new File(path));
+		} catch (IOException e) {
+			System.out.println("File error occured. Image " + path + " will not be shown");
+			return null;
+		}
+	}
+	
+	//Load an image scaled to width by height into a compatible image, from the asset pack if it has it, returns null if it cannot be read
+	public static synchronized BufferedImage loadScaled(String path, int width, int height, Object interpolation, int transparency) {
+		BufferedImage image = createCompatible(width, height, transparency);
+		IntBuffer pixels = getPack() == null ? null : pack.getPixels(path, width, height);
+		Graphics2D g = image.createGraphics();
+		if (pixels != null) {
+			//Copy the pixels into a plain image and blit that, so the compatible image stays in the screen's format
+			BufferedImage staging = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			pixels.get(((DataBufferInt) staging.getRaster().getDataBuffer()).getData());
+			g.drawImage(staging, 0, 0, null);
+			g.dispose();
+			return image;
+		}
+		
+		BufferedImage source = load(path);
+		if (source == null) {
+			g.dispose();
+			return null;
+		}
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+		g.drawImage(source, 0, 0, width, height, null);
+		g.dispose();
+		if (recorder != null) recorder.add(path, image);
+		return image;
+	}
+	
+	//Open the asset pack the first time it is needed, the PNG files are used if it is missing or damaged
+	private static AssetPack getPack() {
+		if (!packOpened) {
+			packOpened = true;
+			if (recorder == null && new File(PACK_FILE).exists()) {
+				try {
+					pack = AssetPack.open(PACK_FILE);
+				} catch (IOException e) {
+					System.out.println("Asset pack " + PACK_FILE + " could not be read, loading images from PNG files: " + e.getMessage());
+				}
+			}
+		}
+		return pack;
+	}
+	
+	//Add every image loaded from now on to builder instead of reading them from the pack
+	public static synchronized void recordInto(AssetPack.Builder builder) {
+		recorder = builder;
+		pack = null;
+		packOpened = true;
+	}
+}
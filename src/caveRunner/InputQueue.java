@@ -0,0 +1,96 @@
+/*
+ * Name: Jack Whitman
+ * Description: The InputQueue class passes key events from the key listener to the simulation thread without locks. The key listener adds each press and release with the System.nanoTime it happened at, and the simulation takes them all at the start of each tick so none are lost between ticks. Every event that changed a key is passed back the same way with the step it took effect on, and once the renderer draws that step it records how long the event took to reach the screen.
+ */
+package caveRunner;
+
+public class InputQueue {
+	//Constants, capacity must be a power of two
+	private final static int CAPACITY = 256, MASK = CAPACITY - 1;
+	private final static int RELEASED = 1 << 31;
+	
+	//Event data, written by the key listener and read by the game loop
+	private final int[] events = new int[CAPACITY];
+	private final long[] times = new long[CAPACITY];
+	
+	//Next event to read and next event to write, only the reader moves head and only the writer moves tail
+	private volatile long head, tail;
+	private volatile int dropped;
+	
+	//Events the simulation has taken that are not on screen yet, written by the simulation and read by the renderer
+	private final long[] unshownTimes = new long[CAPACITY], unshownTicks = new long[CAPACITY];
+	private volatile long unshownHead, unshownTail;
+	
+	//Latency instance vars
+	private long latencyCount, latencyTotalNanos, latencyMaxNanos;
+	
+	//Add a key event, called only from the key listener, returns false if the queue is full
+	public boolean offer(int key, boolean pressed, long nanos) {
+		long t = tail;
+		if (t - head == CAPACITY) {
+			dropped++;
+			return false;
+		}
+		int i = (int)(t & MASK);
+		events[i] = pressed ? key : key | RELEASED;
+		times[i] = nanos;
+		
+		//Writing tail publishes the event to the reader
+		tail = t + 1;
+		return true;
+	}
+	
+	//Apply every waiting event to input in order, called only from the simulation at the start of step tick
+	public void drainTo(InputState input, long tick) {
+		long h = head, t = tail;
+		for (; h < t; h++) {
+			int i = (int)(h & MASK);
+			int event = events[i];
+			boolean changed = (event & RELEASED) == 0 ? input.press(event) : input.release(event & ~RELEASED);
+			
+			//Only events that changed a key can show up on screen, their latency is not measured if the renderer has fallen behind
+			long u = unshownTail;
+			if (changed && u - unshownHead < CAPACITY) {
+				unshownTimes[(int)(u & MASK)] = times[i];
+				unshownTicks[(int)(u & MASK)] = tick;
+				unshownTail = u + 1;
+			}
+		}
+		head = h;
+	}
+	
+	//Throw away waiting events, called only while the simulation thread is stopped
+	public void clear() {
+		head = tail;
+		unshownHead = unshownTail;
+	}
+	
+	//Record the latency of every event taken up to step tick now that a frame showing that step has been drawn, called only from the renderer
+	public void frameShown(long nanos, long tick) {
+		long h = unshownHead, t = unshownTail;
+		for (; h < t && unshownTicks[(int)(h & MASK)] <= tick; h++) {
+			long latency = nanos - unshownTimes[(int)(h & MASK)];
+			latencyCount++;
+			latencyTotalNanos += latency;
+			latencyMaxNanos = Math.max(latencyMaxNanos, latency);
+		}
+		unshownHead = h;
+	}
+	
+	//Getter methods
+	public long getLatencyCount() {
+		return latencyCount;
+	}
+	
+	public long getAverageLatencyNanos() {
+		return latencyCount > 0 ? latencyTotalNanos / latencyCount : 0;
+	}
+	
+	public long getMaxLatencyNanos() {
+		return latencyMaxNanos;
+	}
+	
+	public int getDropped() {
+		return dropped;
+	}
+}
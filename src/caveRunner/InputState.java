@@ -0,0 +1,75 @@
+/*
+ * Name: Jack Whitman
+ * Description: The InputState class holds the keys that are held down for one tick of the simulation. A key that was pressed since the last tick counts as held for the next tick even if it was already let go, so quick taps are not lost.
+ */
+package caveRunner;
+
+public class InputState {
+	//Key bits
+	public final static int LEFT = 1, RIGHT = 2, JUMP = 4;
+	
+	//Instance vars
+	private int held, tapped;
+	
+	//Setter methods
+	public void setLeft(boolean left) {
+		setHeld(LEFT, left);
+	}
+	
+	public void setRight(boolean right) {
+		setHeld(RIGHT, right);
+	}
+	
+	public void setJump(boolean jump) {
+		setHeld(JUMP, jump);
+	}
+	
+	private void setHeld(int key, boolean isHeld) {
+		if (isHeld) held |= key;
+		else held &= ~key;
+	}
+	
+	//Press a key, returns true if it was not already held
+	public boolean press(int key) {
+		boolean changed = (held & key) == 0;
+		held |= key;
+		tapped |= key;
+		return changed;
+	}
+	
+	//Let go of a key, returns true if it was held
+	public boolean release(int key) {
+		boolean changed = (held & key) != 0;
+		held &= ~key;
+		return changed;
+	}
+	
+	//Hold exactly the keys in bits, used to play back a replay
+	public void setBits(int bits) {
+		held = bits;
+		tapped = 0;
+	}
+	
+	//Forget taps once a tick has seen them
+	public void clearTaps() {
+		tapped = 0;
+	}
+	
+	//Getter methods
+	public boolean isLeft() {
+		return ((held | tapped) & LEFT) != 0;
+	}
+	
+	public boolean isRight() {
+		return ((held | tapped) & RIGHT) != 0;
+	}
+	
+	public boolean isJump() {
+		return ((held | tapped) & JUMP) != 0;
+	}
+	
+	//Keys the next tick sees as held, as key bits
+	public int getBits() {
+		return held | tapped;
+	}
+}
@@ -6,6 +6,9 @@
 
 package caveRunner;
 public class Main {
+	//When the game started, for timing startup
+	public final static long START_NANOS = System.nanoTime();
+	
 	//Create frame
 	public static void main(String[] args) {
 		new CaveRunnerGameFrame();
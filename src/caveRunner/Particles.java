@@ -0,0 +1,141 @@
+/*
+ * Name: Jack Whitman
+ * Description: The Particles class stores every live particle in fixed-size primitive arrays, one array per field, so spawning, moving, and killing particles never allocates. Live particles are kept packed at the front of the arrays, with a dead particle replaced by the last live one. Particles are in world coordinates and are drawn from tiny sprites made once for each kind and fade step, one pass per sprite. Drawing translucent squares with fillRect allocates on every call in software rendering, blitting a sprite does not.
+ */
+package caveRunner;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import javax.swing.JComponent;
+
+@SuppressWarnings("serial")
+public class Particles extends JComponent {
+	//Kinds of particle
+	public final static int DUST = 0, DEBRIS = 1, PUFF = 2;
+	private final static Color[] KIND_COLORS = {new Color(0xB8AFC9), new Color(0x6B6478), new Color(0xD9D4E3)};
+	private final static float[] KIND_GRAVITY = {0.015f, 0.25f, -0.01f};
+	private final static int[] KIND_SIZES = {2, 3, 3};
+	
+	//Particles fade out in steps, each kind has a sprite for every step
+	private final static int FADE_STEPS = 4;
+	private final static BufferedImage[][] SPRITES = new BufferedImage[KIND_COLORS.length][FADE_STEPS];
+	static {
+		for (int kind = 0; kind < KIND_COLORS.length; kind++) {
+			Color color = KIND_COLORS[kind];
+			for (int step = 0; step < FADE_STEPS; step++) {
+				SPRITES[kind][step] = Images.createCompatible(KIND_SIZES[kind], KIND_SIZES[kind], Transparency.TRANSLUCENT);
+				Graphics2D g = SPRITES[kind][step].createGraphics();
+				g.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 255 * (step + 1) / FADE_STEPS));
+				g.fillRect(0, 0, KIND_SIZES[kind], KIND_SIZES[kind]);
+				g.dispose();
+			}
+		}
+	}
+	
+	//Particle data, only the first count entries are alive
+	private float[] x, y, vx, vy;
+	private int[] life, maxLife;
+	private byte[] kind;
+	private int count, capacity;
+	
+	//Where the component renderer draws from
+	private int viewX;
+	private float viewAlpha;
+	
+	public Particles(int capacity) {
+		this.capacity = capacity;
+		x = new float[capacity];
+		y = new float[capacity];
+		vx = new float[capacity];
+		vy = new float[capacity];
+		life = new int[capacity];
+		maxLife = new int[capacity];
+		kind = new byte[capacity];
+		setBounds(0, 0, CaveSimulation.PANEL_WIDTH, CaveSimulation.PANEL_HEIGHT);
+	}
+	
+	//Add a particle that lives for ticks steps, returns false if every slot is taken
+	public boolean spawn(int particleKind, float px, float py, float pvx, float pvy, int ticks) {
+		if (count == capacity || ticks <= 0) return false;
+		int i = count++;
+		x[i] = px;
+		y[i] = py;
+		vx[i] = pvx;
+		vy[i] = pvy;
+		life[i] = maxLife[i] = ticks;
+		kind[i] = (byte) particleKind;
+		return true;
+	}
+	
+	//Move every particle one step and remove the ones that ran out of life
+	public void update() {
+		int i = 0;
+		while (i < count) {
+			if (--life[i] <= 0) {
+				kill(i);
+				continue;
+			}
+			vy[i] += KIND_GRAVITY[kind[i]];
+			x[i] += vx[i];
+			y[i] += vy[i];
+			i++;
+		}
+	}
+	
+	//Move the last live particle into slot i
+	private void kill(int i) {
+		int last = --count;
+		x[i] = x[last];
+		y[i] = y[last];
+		vx[i] = vx[last];
+		vy[i] = vy[last];
+		life[i] = life[last];
+		maxLife[i] = maxLife[last];
+		kind[i] = kind[last];
+	}
+	
+	//Remove every particle
+	public void clear() {
+		if (count > 0) repaint();
+		count = 0;
+	}
+	
+	//Store where the component renderer draws from, and repaint while there is anything to show
+	public void setView(int cameraX, float alpha) {
+		viewX = cameraX;
+		viewAlpha = alpha;
+		if (count > 0) repaint();
+	}
+	
+	protected void paintComponent(Graphics g) {
+		draw((Graphics2D) g, viewX, viewAlpha);
+	}
+	
+	//Draw every particle moved alpha of a step ahead, one pass for each sprite
+	public void draw(Graphics2D g, int cameraX, float alpha) {
+		if (count == 0) return;
+		for (int k = 0; k < SPRITES.length; k++) {
+			for (int step = 0; step < FADE_STEPS; step++) {
+				BufferedImage sprite = SPRITES[k][step];
+				for (int i = 0; i < count; i++)
+					if (kind[i] == k && fadeStep(i) == step) g.drawImage(sprite, (int) (x[i] + vx[i] * alpha) - cameraX, (int) (y[i] + vy[i] * alpha), null);
+			}
+		}
+	}
+	
+	//Which fade color a particle uses, fading over the last half of its life
+	private int fadeStep(int i) {
+		return Math.min(FADE_STEPS - 1, life[i] * FADE_STEPS * 2 / maxLife[i]);
+	}
+	
+	//Getter methods
+	public int getCount() {
+		return count;
+	}
+	
+	public int getCapacity() {
+		return capacity;
+	}
+}
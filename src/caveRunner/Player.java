@@ -1,13 +1,10 @@
 /*
  * Name: Jack Whitman
- * Description: The Player class functions as a label to display player animations and move around the screen
+ * Description: The Player class functions as a label to display player animations and move around the screen. Each CaveSimulation animation plays a clip from the animation manifest, stepped by real time
  */
 package caveRunner;
 import javax.swing.JLabel;
-import javax.swing.ImageIcon;
-import java.awt.Graphics2D;
-import java.awt.Image;
-import java.awt.image.BufferedImage;
+import java.awt.Graphics;
 
 @SuppressWarnings("serial")
 public class Player extends JLabel {
@@ -15,129 +12,72 @@ public class Player extends JLabel {
 	public final static int CHAR_HEIGHT = 74;
 	public final static int CHAR_WIDTH = 100;
 	
-	//Static mathods for images
-	//Scale image
-	public static ImageIcon scale(ImageIcon img, int width, int height) {
-		return new ImageIcon(img.getImage().getScaledInstance(width, height, Image.SCALE_AREA_AVERAGING));
-	}
-		
-	public static ImageIcon flip(ImageIcon img){
-		BufferedImage sprite = toBufferedImage(img.getImage());
-	    BufferedImage buffimg = new BufferedImage(sprite.getWidth(),sprite.getHeight(),BufferedImage.TYPE_INT_ARGB);
-	    for(int xx = sprite.getWidth()-1;xx>0;xx--){
-	    	for(int yy = 0;yy < sprite.getHeight();yy++){
-	    		buffimg.setRGB(sprite.getWidth()-xx, yy, sprite.getRGB(xx, yy));
-	    	}
-	    }
-	    return new ImageIcon(buffimg);
-	}
-		
-	//Convert image to a buffered image
-	public static BufferedImage toBufferedImage(Image img) {
-		//Return image if it is a buffered image
-	    if (img instanceof BufferedImage) return (BufferedImage) img;
-
-	    // Create a buffered image with transparency
-	    BufferedImage bimage = new BufferedImage(img.getWidth(null), img.getHeight(null), BufferedImage.TYPE_INT_ARGB);
-	    // Draw the image on to the buffered image
-	    Graphics2D bGr = bimage.createGraphics();
-	    bGr.drawImage(img, 0, 0, null);
-	    bGr.dispose();
-
-	    // Return the buffered image
-	    return bimage;
-	}
-
+	//Atlas with every animation frame
+	private final static SpriteAtlas atlas = new SpriteAtlas(CHAR_WIDTH, CHAR_HEIGHT);
 	
-	//Arrays of animations
-	private final static ImageIcon[] idleAnims = {
-		scale(new ImageIcon("assets/adventurer-idle-00.png"), CHAR_WIDTH, CHAR_HEIGHT),
-		scale(new ImageIcon("assets/adventurer-idle-01.png"), CHAR_WIDTH, CHAR_HEIGHT), 
-		scale(new ImageIcon("assets/adventurer-idle-02.png"), CHAR_WIDTH, CHAR_HEIGHT),
-		scale(new ImageIcon("assets/adventurer-idle-03.png"), CHAR_WIDTH, CHAR_HEIGHT)
-	};
-	
-	private final static ImageIcon[] runAnims = {
-		scale(new ImageIcon("assets/adventurer-run-00.png"), CHAR_WIDTH, CHAR_HEIGHT),
-		scale(new ImageIcon("assets/adventurer-run-01.png"), CHAR_WIDTH, CHAR_HEIGHT),
-		scale(new ImageIcon("assets/adventurer-run-02.png"), CHAR_WIDTH, CHAR_HEIGHT),
-		scale(new ImageIcon("assets/adventurer-run-03.png"), CHAR_WIDTH, CHAR_HEIGHT),
-		scale(new ImageIcon("assets/adventurer-run-04.png"), CHAR_WIDTH, CHAR_HEIGHT),
-		scale(new ImageIcon("assets/adventurer-run-05.png"), CHAR_WIDTH, CHAR_HEIGHT)
-	};
-	
-	private final static ImageIcon[] jumpAnims = {
-		scale(new ImageIcon("assets/adventurer-jump-00.png"), CHAR_WIDTH, CHAR_HEIGHT),
-		scale(new ImageIcon("assets/adventurer-jump-01.png"), CHAR_WIDTH, CHAR_HEIGHT),
-		scale(new ImageIcon("assets/adventurer-jump-02.png"), CHAR_WIDTH, CHAR_HEIGHT),
-		scale(new ImageIcon("assets/adventurer-jump-03.png"), CHAR_WIDTH, CHAR_HEIGHT)
-	};
-	
-	private final static ImageIcon[] flippedIdleAnims = {
-		flip(idleAnims[0]),
-		flip(idleAnims[1]),
-		flip(idleAnims[2]),
-		flip(idleAnims[3])
-	};
-	
-	private final static ImageIcon[] flippedRunAnims = {
-		flip(runAnims[0]),
-		flip(runAnims[1]),
-		flip(runAnims[2]),
-		flip(runAnims[3]),
-		flip(runAnims[4]),
-		flip(runAnims[5])
-	};
-	
-	private final static ImageIcon[] flippedJumpAnims = {
-		flip(jumpAnims[0]),
-		flip(jumpAnims[1]),
-		flip(jumpAnims[2]),
-		flip(jumpAnims[3])
-	};
+	//Clip for each CaveSimulation animation, looked up by name once
+	private final static String[] STATE_CLIP_NAMES = {"idle", "run", "jump"};
+	private final static int[] STATE_CLIPS = new int[STATE_CLIP_NAMES.length];
+	static {
+		for (int i = 0; i < STATE_CLIP_NAMES.length; i++) {
+			STATE_CLIPS[i] = atlas.getAnimations().indexOf(STATE_CLIP_NAMES[i]);
+			if (STATE_CLIPS[i] < 0) System.out.println("Animation manifest has no " + STATE_CLIP_NAMES[i] + " clip");
+		}
+	}
 	
-
 	//Instance vars
 	private int x;
 	private int y;
-	private int idleIndex;
-	private int runIndex;
-	private int jumpIndex;
-	private long animationCounter;
+	private int state, clip, shownClip, frameIndex;
+	private long clipNanos;
+	private boolean flipped;
 	
 	//Create player
 	public Player(int xPos, int yPos) {
 		x = xPos;
 		y = yPos;
-		idleIndex = 0;
-		runIndex = 0;
-		jumpIndex = 0;
-		this.setIcon(scale(idleAnims[0], CHAR_WIDTH, CHAR_HEIGHT));
+		state = CaveSimulation.IDLE;
+		clip = shownClip = STATE_CLIPS[state];
+		clipNanos = 0;
+		frameIndex = 0;
+		flipped = false;
 		drawAt(x, y);
 	}
 	
-	//Method to increase animation frame
-	public void animate(String type, boolean isFacingBack) {
-		//Animate every seven frames
-		if (animationCounter++ % 7 == 0) {
-			//Animate based on type of action and direction
-			if (type.equals("idle")) {
-				idleIndex++;
-				jumpIndex = 0;
-				
-				this.setIcon(isFacingBack ? flippedIdleAnims[idleIndex % flippedIdleAnims.length] : idleAnims[idleIndex % idleAnims.length]);
-			} else if (type.equals("run")) {
-				runIndex++;
-				jumpIndex = 0;
-				this.setIcon(isFacingBack ? flippedRunAnims[runIndex % flippedRunAnims.length] : runAnims[runIndex % runAnims.length]);
-			} else if (type.equals("jump")) {
-				if (jumpIndex < jumpAnims.length - 1) {
-					jumpIndex++;
-				}
-				this.setIcon(isFacingBack ? flippedJumpAnims[jumpIndex] : jumpAnims[jumpIndex]);
-			}
+	//Play the clip for a CaveSimulation animation, starting it over if it is not already playing
+	public void animate(int type, boolean isFacingBack) {
+		if (type != state) {
+			state = type;
+			clip = STATE_CLIPS[type];
+			clipNanos = 0;
 		}
-		
+		showFrame(isFacingBack);
+	}
+	
+	//Advance the playing clip by the real time since the last frame
+	public void advance(long elapsedNanos) {
+		clipNanos += elapsedNanos;
+		showFrame(flipped);
+	}
+	
+	//Show the frame for the time the clip has played, only repaints when it changes and the label is on screen, the canvas renderer draws it directly
+	private void showFrame(boolean isFacingBack) {
+		int index = clip < 0 ? 0 : atlas.getAnimations().getClip(clip).frameAt(clipNanos / 1_000_000);
+		if (index == frameIndex && isFacingBack == flipped && clip == shownClip) return;
+		frameIndex = index;
+		flipped = isFacingBack;
+		shownClip = clip;
+		if (isDisplayable()) repaint();
+	}
+	
+	//Paint the current frame
+	protected void paintComponent(Graphics g) {
+		drawFrame(g, 0, 0);
+	}
+	
+	//Draw the current frame with its top left corner at xPos, yPos
+	public void drawFrame(Graphics g, int xPos, int yPos) {
+		if (clip >= 0) atlas.draw(g, clip, frameIndex, flipped, xPos, yPos);
 	}
 	
 	//Getter methods
@@ -155,5 +95,5 @@ public class Player extends JLabel {
 		y = yPos;
 		this.setBounds(x, y, CHAR_WIDTH, CHAR_HEIGHT);
 	}
-	
+
 }
@@ -0,0 +1,196 @@
+/*
+ * Name: Jack Whitman
+ * Description: The Replay class records one game as the course seed plus the keys held on every tick, along with the final score, tick count, and cause of death. A recording keeps one byte of keys per tick in an array sized for the longest game a replay may hold, made once and reused for every game of a session, so recording never allocates during play. It saves to and loads from a small binary file of runs of ticks with the same keys, where each run takes a byte for the keys and usually one or two bytes for its length, so even a long game is a few kilobytes.
+ */
+package caveRunner;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class Replay {
+	//Constants
+	private final static int MAGIC = 0x43525250, VERSION = 1;
+	private final static int ENDLESS_FLAG = 1, RESTARTED_FLAG = 2;
+	
+	//Longest game a replay holds, two hours
+	public final static int MAX_TICKS = 2 * 60 * 60 * 1000 / CaveSimulation.TICK_MS;
+	
+	//Instance vars for how the game was set up
+	private long seed;
+	private boolean endless, restarted;
+	
+	//Keys held on each tick, ticks can pass the end of the array if the game ran longer than the replay holds
+	private byte[] keys;
+	
+	//Instance vars for how the game ended
+	private int ticks, score;
+	private DeathCause deathCause;
+	
+	//Start an empty recording, restarted is true if the game was started with CaveSimulation.restart
+	public Replay(long seed, boolean endless, boolean restarted) {
+		this(seed, endless, restarted, MAX_TICKS);
+	}
+	
+	private Replay(long seed, boolean endless, boolean restarted, int capacity) {
+		keys = new byte[capacity];
+		reset(seed, endless, restarted);
+	}
+	
+	//Empty the replay to record a new game into the same array
+	public void reset(long seed, boolean endless, boolean restarted) {
+		this.seed = seed;
+		this.endless = endless;
+		this.restarted = restarted;
+		ticks = score = 0;
+		deathCause = DeathCause.NONE;
+	}
+	
+	//Add one tick with the keys in bits, once the replay is full its ticks are still counted but their keys are not kept
+	public void record(int bits) {
+		if (ticks < keys.length) keys[ticks] = (byte) bits;
+		ticks++;
+	}
+	
+	//Throw away every tick after the first ticks, used when the game is rewound so the replay follows the game that was played to the end
+	public void truncate(int ticks) {
+		this.ticks = Math.min(this.ticks, ticks);
+	}
+	
+	//Store how the game ended
+	public void finish(int score, DeathCause deathCause) {
+		this.score = score;
+		this.deathCause = deathCause;
+	}
+	
+	//Create a simulation set up the same way the recorded game was, without printing each level's times
+	public CaveSimulation createSimulation(SimulationListener listener) {
+		CaveSimulation sim = new CaveSimulation(listener, endless, seed);
+		sim.setVerbose(false);
+		if (restarted) sim.restart(seed);
+		return sim;
+	}
+	
+	//Step sim through every recorded tick, stopping early if the player dies
+	public void play(CaveSimulation sim) {
+		InputState input = new InputState();
+		int recorded = Math.min(ticks, keys.length);
+		for (int i = 0; i < recorded && !sim.isDead(); i++) {
+			input.setBits(keys[i]);
+			sim.step(input);
+		}
+	}
+	
+	//Save the replay, which must hold every tick of its game
+	public void write(String path) throws IOException {
+		if (!isComplete()) throw new IOException("Replay of " + ticks + " ticks is longer than the " + MAX_TICKS + " a replay holds");
+		
+		//Count the runs of ticks with the same keys first, since the count comes before them
+		int runCount = 0;
+		for (int i = 0; i < ticks; i++)
+			if (i == 0 || keys[i] != keys[i - 1]) runCount++;
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeByte((endless ? ENDLESS_FLAG : 0) | (restarted ? RESTARTED_FLAG : 0));
+			out.writeLong(seed);
+			out.writeInt(ticks);
+			out.writeInt(score);
+			out.writeByte(deathCause.ordinal());
+			out.writeInt(runCount);
+			for (int start = 0; start < ticks;) {
+				int end = start + 1;
+				while (end < ticks && keys[end] == keys[start])
+					end++;
+				out.writeByte(keys[start]);
+				writeVarInt(out, end - start);
+				start = end;
+			}
+		}
+	}
+	
+	//Load a replay
+	public static Replay read(String path) throws IOException {
+		try (InputStream in = new BufferedInputStream(new FileInputStream(path))) {
+			return read(in, path);
+		}
+	}
+	
+	//Load a replay from a stream, name is only used in error messages
+	public static Replay read(InputStream stream, String name) throws IOException {
+		DataInputStream in = new DataInputStream(stream);
+		if (in.readInt() != MAGIC) throw new IOException(name + " is not a replay");
+		int version = in.readUnsignedByte();
+		if (version != VERSION) throw new IOException(name + " has unknown replay version " + version);
+		int flags = in.readUnsignedByte();
+		long seed = in.readLong();
+		int ticks = in.readInt();
+		int score = in.readInt();
+		int cause = in.readUnsignedByte();
+		if (cause >= DeathCause.values().length) throw new IOException(name + " has unknown cause of death " + cause);
+		int runCount = in.readInt();
+		if (ticks < 0 || ticks > MAX_TICKS) throw new IOException(name + " is " + ticks + " ticks long, a replay holds at most " + MAX_TICKS);
+		
+		//Hold exactly the ticks the file claims, each run must fit in what is left of them
+		Replay replay = new Replay(seed, (flags & ENDLESS_FLAG) != 0, (flags & RESTARTED_FLAG) != 0, ticks);
+		for (int run = 0; run < runCount; run++) {
+			int bits = in.readByte();
+			int length = readVarInt(in);
+			if (length <= 0 || length > ticks - replay.ticks) throw new IOException(name + " is damaged, its runs do not add up to " + ticks + " ticks");
+			for (int i = 0; i < length; i++)
+				replay.record(bits);
+		}
+		if (replay.ticks != ticks) throw new IOException(name + " is damaged, its runs do not add up to " + ticks + " ticks");
+		replay.finish(score, DeathCause.values()[cause]);
+		return replay;
+	}
+	
+	//Write a number seven bits at a time, the top bit of each byte says if more bytes follow
+	private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+	
+	private static int readVarInt(DataInputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+		}
+		throw new IOException("Replay run length is too long");
+	}
+	
+	//Getter methods
+	public long getSeed() {
+		return seed;
+	}
+	
+	public boolean isEndless() {
+		return endless;
+	}
+	
+	public int getTicks() {
+		return ticks;
+	}
+	
+	public int getScore() {
+		return score;
+	}
+	
+	public DeathCause getDeathCause() {
+		return deathCause;
+	}
+	
+	//True unless the game ran longer than the replay holds
+	public boolean isComplete() {
+		return ticks <= keys.length;
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Name: Jack Whitman
+ * Description: The ReplayPlayer class plays back saved replays without a window, as fast as the simulation can step, and checks that each one ends with the recorded score, tick count, and cause of death. It takes replay files or folders of them and exits with an error if any replay does not match.
+ */
+package caveRunner;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class ReplayPlayer {
+	//Listener for a simulation nobody is watching
+	public final static SimulationListener NO_LISTENER = new SimulationListener() {
+		public void scoreIncreased() {}
+		public void playerDied() {}
+		public void caveRegenerated() {}
+		public void caveClosing() {}
+		public void caveOpening() {}
+		public void playerLanded(int x, int y, int speed) {}
+		public void playerCrossedStep(int x, int y) {}
+	};
+	
+	//Usage: ReplayPlayer <replay file or folder>...
+	public static void main(String[] args) {
+		ArrayList<File> files = new ArrayList<>();
+		for (String arg : args)
+			addReplays(new File(arg), files);
+		if (files.isEmpty()) {
+			System.out.println("Usage: ReplayPlayer <replay file or folder>...");
+			System.exit(2);
+		}
+		
+		int mismatches = 0;
+		for (File file : files) {
+			try {
+				if (!check(file)) mismatches++;
+			} catch (IOException e) {
+				System.out.println(file + ": " + e.getMessage());
+				mismatches++;
+			}
+		}
+		System.out.println(files.size() + " replays, " + mismatches + " did not match");
+		if (mismatches > 0) System.exit(1);
+	}
+	
+	private static void addReplays(File file, ArrayList<File> files) {
+		if (file.isDirectory()) {
+			File[] children = file.listFiles((dir, name) -> name.endsWith(".crr"));
+			Arrays.sort(children);
+			files.addAll(Arrays.asList(children));
+		} else {
+			files.add(file);
+		}
+	}
+	
+	//Play one replay and compare how it ended, returns true if it matches
+	private static boolean check(File file) throws IOException {
+		Replay replay = Replay.read(file.getPath());
+		CaveSimulation sim = replay.createSimulation(NO_LISTENER);
+		
+		long start = System.nanoTime();
+		replay.play(sim);
+		long nanos = System.nanoTime() - start;
+		
+		boolean matches = sim.getTick() == replay.getTicks() && sim.getScore() == replay.getScore() && sim.getDeathCause() == replay.getDeathCause();
+		double speedup = sim.getTick() * CaveSimulation.TICK_MS * 1e6 / Math.max(nanos, 1);
+		System.out.printf("%s: seed %d, %d ticks, score %d, %s in %.1f ms (%.0fx real time)%s%n", file.getName(), replay.getSeed(), sim.getTick(), sim.getScore(), sim.getDeathCause(), nanos / 1e6, speedup,
+				matches ? "" : " MISMATCH, recorded " + replay.getTicks() + " ticks, score " + replay.getScore() + ", " + replay.getDeathCause());
+		return matches;
+	}
+}
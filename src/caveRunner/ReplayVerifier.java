@@ -0,0 +1,220 @@
+/*
+ * Name: Jack Whitman
+ * Description: The ReplayVerifier class is a small local service that checks submitted runs by playing their replays against the game rules. It takes replays over a socket on the loopback address or from a watched folder, plays each one on its own thread, and answers with ACCEPT and the computed score if the replay ends the way it claims, or REJECT with the reason if not. Virtual threads are used when the JVM has them so thousands of submissions can wait at once, and simulations are limited to one per core so they do not fight over the CPU. It can also submit replays to a running service.
+ */
+package caveRunner;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+public class ReplayVerifier {
+	//Constants
+	public final static int DEFAULT_PORT = 7755;
+	private final static int MAX_REPLAY_BYTES = 1 << 20;
+	
+	//Only this many simulations run at once, the rest wait their turn
+	private final static Semaphore simulations = new Semaphore(Runtime.getRuntime().availableProcessors());
+	
+	//Usage: ReplayVerifier [--port n] [--watch folder]
+	//   or: ReplayVerifier --submit [host:]port <replay file or folder>...
+	public static void main(String[] args) throws Exception {
+		int port = DEFAULT_PORT;
+		String watch = null, submit = null;
+		List<String> files = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "--port": port = Integer.parseInt(args[++i]); break;
+				case "--watch": watch = args[++i]; break;
+				case "--submit": submit = args[++i]; break;
+				default: files.add(args[i]);
+			}
+		}
+		
+		ExecutorService executor = createExecutor();
+		if (submit != null) {
+			submitAll(submit, files, executor);
+			return;
+		}
+		if (watch != null) {
+			String folder = watch;
+			Thread watcher = new Thread(() -> watch(Paths.get(folder), executor), "Replay Watcher");
+			watcher.start();
+		}
+		serve(port, executor);
+	}
+	
+	//Run every task on its own virtual thread if the JVM has them, or on a pool of platform threads if not
+	public static ExecutorService createExecutor() {
+		try {
+			ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			System.out.println("Using virtual threads");
+			return executor;
+		} catch (ReflectiveOperationException e) {
+			System.out.println("Virtual threads are not available on Java " + Runtime.version().feature() + ", using platform threads");
+			return Executors.newCachedThreadPool();
+		}
+	}
+	
+	//Play a replay and compare how it ended with what it claims, returns the answer to send back
+	public static String verify(Replay replay) throws InterruptedException {
+		if (replay.getTicks() > Replay.MAX_TICKS) return "REJECT replay is longer than " + Replay.MAX_TICKS + " ticks";
+		
+		CaveSimulation sim = replay.createSimulation(ReplayPlayer.NO_LISTENER);
+		simulations.acquire();
+		try {
+			replay.play(sim);
+		} finally {
+			simulations.release();
+		}
+		
+		String result = "score " + sim.getScore() + " ticks " + sim.getTick() + " cause " + sim.getDeathCause() + " seed " + replay.getSeed();
+		if (!sim.isDead()) return "REJECT run did not end, " + result;
+		if (sim.getTick() != replay.getTicks() || sim.getScore() != replay.getScore() || sim.getDeathCause() != replay.getDeathCause())
+			return "REJECT claimed score " + replay.getScore() + " ticks " + replay.getTicks() + " cause " + replay.getDeathCause() + ", replayed " + result;
+		return "ACCEPT " + result;
+	}
+	
+	//Verify bytes holding one replay
+	private static String verify(byte[] bytes, String name) throws InterruptedException {
+		try {
+			return verify(Replay.read(new ByteArrayInputStream(bytes), name));
+		} catch (IOException e) {
+			return "REJECT " + e.getMessage();
+		}
+	}
+	
+	//Accept connections on the loopback address, each one is handled on its own thread
+	private static void serve(int port, ExecutorService executor) throws IOException {
+		try (ServerSocket server = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress())) {
+			System.out.println("Verifying replays on " + server.getLocalSocketAddress());
+			while (true) {
+				Socket socket = server.accept();
+				executor.execute(() -> handle(socket));
+			}
+		}
+	}
+	
+	//Each request is a 4 byte length and that many bytes of replay, each answer is one UTF string
+	private static void handle(Socket socket) {
+		try (socket; DataInputStream in = new DataInputStream(socket.getInputStream()); DataOutputStream out = new DataOutputStream(socket.getOutputStream())) {
+			while (true) {
+				int length;
+				try {
+					length = in.readInt();
+				} catch (EOFException e) {
+					return;
+				}
+				if (length <= 0 || length > MAX_REPLAY_BYTES) {
+					out.writeUTF("REJECT replay size " + length + " is not between 1 and " + MAX_REPLAY_BYTES + " bytes");
+					return;
+				}
+				byte[] bytes = new byte[length];
+				in.readFully(bytes);
+				out.writeUTF(verify(bytes, "submitted replay"));
+				out.flush();
+			}
+		} catch (IOException | InterruptedException e) {
+			System.out.println("Connection error: " + e);
+		}
+	}
+	
+	//Verify every replay already in folder and every one added to it, writing each answer next to it as a .result file
+	private static void watch(Path folder, ExecutorService executor) {
+		try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+			folder.register(watcher, StandardWatchEventKinds.ENTRY_CREATE);
+			System.out.println("Watching " + folder + " for replays, move finished files in so they are never read half written");
+			File[] existing = folder.toFile().listFiles((dir, name) -> name.endsWith(".crr"));
+			if (existing != null)
+				for (File file : existing)
+					executor.execute(() -> verifyFile(file.toPath()));
+			
+			while (true) {
+				WatchKey key = watcher.take();
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) continue;
+					Path file = folder.resolve((Path) event.context());
+					if (file.toString().endsWith(".crr")) executor.execute(() -> verifyFile(file));
+				}
+				key.reset();
+			}
+		} catch (IOException | InterruptedException e) {
+			System.out.println("Stopped watching " + folder + ": " + e);
+		}
+	}
+	
+	private static void verifyFile(Path file) {
+		try {
+			String answer = Files.size(file) > MAX_REPLAY_BYTES ? "REJECT replay is over " + MAX_REPLAY_BYTES + " bytes" : verify(Files.readAllBytes(file), file.getFileName().toString());
+			try (FileWriter writer = new FileWriter(file + ".result")) {
+				writer.write(answer + "\n");
+			}
+			System.out.println(file.getFileName() + ": " + answer);
+		} catch (IOException | InterruptedException e) {
+			System.out.println(file.getFileName() + ": could not be verified, " + e);
+		}
+	}
+	
+	//Send every replay to a running service at once, each on its own connection, and print the answers
+	private static void submitAll(String address, List<String> paths, ExecutorService executor) throws Exception {
+		String host = address.contains(":") ? address.substring(0, address.lastIndexOf(':')) : "localhost";
+		int port = Integer.parseInt(address.substring(address.lastIndexOf(':') + 1));
+		
+		List<File> files = new ArrayList<>();
+		for (String path : paths) {
+			File file = new File(path);
+			File[] children = file.listFiles((dir, name) -> name.endsWith(".crr"));
+			if (children != null) files.addAll(List.of(children));
+			else files.add(file);
+		}
+		
+		long start = System.nanoTime();
+		List<Future<String>> answers = new ArrayList<>();
+		for (File file : files) {
+			answers.add(executor.submit(() -> {
+				byte[] bytes = Files.readAllBytes(file.toPath());
+				try (Socket socket = new Socket(host, port); DataOutputStream out = new DataOutputStream(socket.getOutputStream()); DataInputStream in = new DataInputStream(socket.getInputStream())) {
+					out.writeInt(bytes.length);
+					out.write(bytes);
+					out.flush();
+					return in.readUTF();
+				}
+			}));
+		}
+		
+		int accepted = 0;
+		for (int i = 0; i < files.size(); i++) {
+			String answer;
+			try {
+				answer = answers.get(i).get();
+			} catch (Exception e) {
+				answer = "ERROR " + e.getCause();
+			}
+			if (answer.startsWith("ACCEPT")) accepted++;
+			System.out.println(files.get(i).getName() + ": " + answer);
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%d of %d accepted in %.2f s (%.0f replays/s)%n", accepted, files.size(), seconds, files.size() / seconds);
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Name: Jack Whitman
+ * Description: The RewindBuffer class keeps the state of the last few seconds of a game so it can be rewound. Every saved tick is a row of ints in one preallocated array, written and read back in the same order like a DataOutputStream, and the oldest row is overwritten once the buffer is full, so saving a tick never allocates and restoring one is a single pass over its row.
+ */
+package caveRunner;
+
+public class RewindBuffer {
+	//Instance vars for the saved rows, frames rows of stride ints
+	private int[] data;
+	private long[] ticks;
+	private int frames, stride;
+	
+	//Instance vars for which rows hold saved ticks, newest is the row after the last one written
+	private int newest, count;
+	
+	//Cursor into the row being written or read
+	private int position, rowEnd;
+	
+	//Create a buffer that keeps the last frames ticks, each saved in at most stride ints
+	public RewindBuffer(int frames, int stride) {
+		this.frames = frames;
+		this.stride = stride;
+		data = new int[frames * stride];
+		ticks = new long[frames];
+	}
+	
+	//Start saving tick, overwriting the oldest saved tick if the buffer is full
+	public void beginWrite(long tick) {
+		ticks[newest] = tick;
+		position = newest * stride;
+		rowEnd = position + stride;
+		newest = (newest + 1) % frames;
+		if (count < frames) count++;
+	}
+	
+	//Start reading the tick saved ticksBack saves before the newest one, throwing away every save after it so play can carry on from there
+	public long beginRead(int ticksBack) {
+		if (count == 0) throw new IllegalStateException("Nothing has been saved to rewind to");
+		ticksBack = Math.min(ticksBack, count - 1);
+		int row = Math.floorMod(newest - 1 - ticksBack, frames);
+		position = row * stride;
+		rowEnd = position + stride;
+		newest = (row + 1) % frames;
+		count -= ticksBack;
+		return ticks[row];
+	}
+	
+	//Throw away every save
+	public void clear() {
+		newest = count = 0;
+	}
+	
+	//Write the next value of the row
+	public void putInt(int value) {
+		if (position == rowEnd) throw new IllegalStateException("Saved state is larger than " + stride + " ints");
+		data[position++] = value;
+	}
+	
+	public void putFloat(float value) {
+		putInt(Float.floatToRawIntBits(value));
+	}
+	
+	public void putLong(long value) {
+		putInt((int) (value >>> 32));
+		putInt((int) value);
+	}
+	
+	public void putBoolean(boolean value) {
+		putInt(value ? 1 : 0);
+	}
+	
+	//Read the next value of the row, in the order it was written
+	public int getInt() {
+		if (position == rowEnd) throw new IllegalStateException("Read past the end of a saved tick");
+		return data[position++];
+	}
+	
+	public float getFloat() {
+		return Float.intBitsToFloat(getInt());
+	}
+	
+	public long getLong() {
+		long high = getInt();
+		return high << 32 | getInt() & 0xFFFFFFFFL;
+	}
+	
+	public boolean getBoolean() {
+		return getInt() != 0;
+	}
+	
+	//Getter methods
+	public int getCount() {
+		return count;
+	}
+	
+	public int getFrames() {
+		return frames;
+	}
+	
+	public int getStride() {
+		return stride;
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Name: Jack Whitman
+ * Description: The RunRecord class holds how one game went: its score, the level it reached, how long it lasted, the course seed, and how it ended. It turns into one line of the score journal and back, with a checksum so a line cut off by a crash is noticed instead of read as a bad score.
+ */
+package caveRunner;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+public class RunRecord {
+	//Instance vars
+	private int score, level;
+	private long durationMs, seed, endedAt;
+	private boolean endless;
+	private DeathCause deathCause;
+	
+	//level is -1 when it is not known, such as for a score imported from an old high score file
+	public RunRecord(int score, int level, long durationMs, long seed, boolean endless, DeathCause deathCause, long endedAt) {
+		this.score = score;
+		this.level = level;
+		this.durationMs = durationMs;
+		this.seed = seed;
+		this.endless = endless;
+		this.deathCause = deathCause;
+		this.endedAt = endedAt;
+	}
+	
+	//Journal line without the line break
+	public String toLine() {
+		String fields = "R," + score + "," + level + "," + durationMs + "," + seed + "," + endless + "," + deathCause + "," + endedAt;
+		return fields + "," + Long.toHexString(checksum(fields));
+	}
+	
+	//Read a journal line, returns null if it is damaged
+	public static RunRecord fromLine(String line) {
+		int lastComma = line.lastIndexOf(',');
+		if (!line.startsWith("R,") || lastComma < 0) return null;
+		String fields = line.substring(0, lastComma);
+		try {
+			if (Long.parseLong(line.substring(lastComma + 1), 16) != checksum(fields)) return null;
+			String[] parts = fields.split(",");
+			if (parts.length != 8) return null;
+			return new RunRecord(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Long.parseLong(parts[3]), Long.parseLong(parts[4]), Boolean.parseBoolean(parts[5]), DeathCause.valueOf(parts[6]), Long.parseLong(parts[7]));
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+	
+	static long checksum(String text) {
+		CRC32 crc = new CRC32();
+		crc.update(text.getBytes(StandardCharsets.UTF_8));
+		return crc.getValue();
+	}
+	
+	//Getter methods
+	public int getScore() {
+		return score;
+	}
+	
+	public int getLevel() {
+		return level;
+	}
+	
+	public long getDurationMs() {
+		return durationMs;
+	}
+	
+	public long getSeed() {
+		return seed;
+	}
+	
+	public boolean isEndless() {
+		return endless;
+	}
+	
+	public DeathCause getDeathCause() {
+		return deathCause;
+	}
+	
+	public long getEndedAt() {
+		return endedAt;
+	}
+}
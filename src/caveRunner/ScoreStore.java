@@ -0,0 +1,277 @@
+/*
+ * Name: Jack Whitman
+ * Description: The ScoreStore class keeps every finished game in an append-only journal file and answers high score, leaderboard, and run history questions from memory. The journal is read once at startup and every write happens on a background thread, so the game never waits on the disk. Each run is appended and synced on its own, and when the journal grows too long it is rewritten to a temporary file, synced, and renamed over the old one, and the folder is synced so the rename itself is on disk, so a crash at any point leaves either the old journal or the new one.
+ */
+package caveRunner;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class ScoreStore {
+	//Constants
+	private final static int KEEP_TOP = 10, KEEP_RECENT = 500, COMPACT_LINES = 2000;
+	private final static String LEGACY_FILE = "highscore.txt";
+	private final static Comparator<RunRecord> BEST_FIRST = Comparator.comparingInt(RunRecord::getScore).reversed().thenComparingLong(RunRecord::getEndedAt);
+	
+	//Instance vars only used on the writer thread
+	private Path journal, temp;
+	private ExecutorService writer;
+	private FileChannel channel;
+	private int journalLines;
+	
+	//Runs in memory, oldest first, the last unwritten of them are not in the journal yet
+	private ArrayList<RunRecord> runs;
+	private int unwritten;
+	
+	//Totals of runs compaction dropped from the journal, so stats still count them
+	private long droppedRuns, droppedScore, droppedMs;
+	private int droppedBestLevel;
+	
+	private int highScore;
+	private volatile boolean available;
+	
+	//Start loading the journal at path in the background, onLoaded runs on the writer thread once it is read
+	public ScoreStore(String path, Runnable onLoaded) {
+		journal = Paths.get(path);
+		temp = Paths.get(path + ".tmp");
+		runs = new ArrayList<>();
+		writer = Executors.newSingleThreadExecutor(task -> {
+			Thread thread = new Thread(task, "Score Writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		writer.execute(() -> {
+			load();
+			onLoaded.run();
+		});
+		
+		//Finish writing before the game exits
+		Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+	}
+	
+	//Add a finished run, returns straight away and the run is written in the background
+	public synchronized void record(RunRecord run) {
+		runs.add(run);
+		unwritten++;
+		highScore = Math.max(highScore, run.getScore());
+		writer.execute(() -> append(run));
+	}
+	
+	//Read the journal, or import the old high score file if there is no journal yet
+	private void load() {
+		ArrayList<RunRecord> loaded = new ArrayList<>();
+		try {
+			boolean needsCompaction = false;
+			if (Files.exists(journal)) {
+				byte[] bytes = Files.readAllBytes(journal);
+				String[] lines = new String(bytes, StandardCharsets.UTF_8).split("\n");
+				int damaged = 0;
+				for (String line : lines) {
+					if (line.isEmpty()) continue;
+					RunRecord run = RunRecord.fromLine(line);
+					if (run != null) loaded.add(run);
+					else if (!readSummary(line)) damaged++;
+				}
+				journalLines = lines.length;
+				
+				//A line cut off by a crash would swallow the next run appended after it
+				if (damaged > 0) System.out.println("Score journal had " + damaged + " damaged lines, they were dropped");
+				needsCompaction = damaged > 0 || bytes.length > 0 && bytes[bytes.length - 1] != '\n' || journalLines > COMPACT_LINES;
+			} else if (Files.exists(Paths.get(LEGACY_FILE))) {
+				//A high score of 0 is the old file's empty value, not a game that was played
+				int legacy = Integer.parseInt(Files.readAllLines(Paths.get(LEGACY_FILE)).get(0).trim());
+				if (legacy > 0) loaded.add(new RunRecord(legacy, -1, 0, 0, false, DeathCause.NONE, Files.getLastModifiedTime(Paths.get(LEGACY_FILE)).toMillis()));
+				needsCompaction = true;
+			}
+			
+			//Runs recorded while loading go after the loaded ones
+			synchronized (this) {
+				runs.addAll(0, loaded);
+				for (RunRecord run : loaded)
+					highScore = Math.max(highScore, run.getScore());
+			}
+			
+			if (needsCompaction) compact();
+			else channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+			available = true;
+		} catch (IOException | RuntimeException e) {
+			System.out.println("File error occured. Scores will not be saved: " + e);
+		}
+	}
+	
+	//Read a summary line of dropped runs, returns false if it is not one
+	private boolean readSummary(String line) {
+		int lastComma = line.lastIndexOf(',');
+		if (!line.startsWith("S,") || lastComma < 0) return false;
+		String fields = line.substring(0, lastComma);
+		try {
+			if (Long.parseLong(line.substring(lastComma + 1), 16) != RunRecord.checksum(fields)) return false;
+			String[] parts = fields.split(",");
+			if (parts.length != 5) return false;
+			synchronized (this) {
+				droppedRuns += Long.parseLong(parts[1]);
+				droppedScore += Long.parseLong(parts[2]);
+				droppedMs += Long.parseLong(parts[3]);
+				droppedBestLevel = Math.max(droppedBestLevel, Integer.parseInt(parts[4]));
+			}
+			return true;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+	
+	//Append one run to the journal and sync it to disk, the run stops counting as unwritten even if this fails so compaction can still rewrite it
+	private void append(RunRecord run) {
+		try {
+			if (channel == null) return;
+			ByteBuffer line = ByteBuffer.wrap((run.toLine() + "\n").getBytes(StandardCharsets.UTF_8));
+			while (line.hasRemaining())
+				channel.write(line);
+			channel.force(false);
+			journalLines++;
+		} catch (IOException e) {
+			System.out.println("File error occured. Score was not saved: " + e);
+			return;
+		} finally {
+			synchronized (this) {
+				unwritten--;
+			}
+		}
+		try {
+			if (journalLines > COMPACT_LINES) compact();
+		} catch (IOException e) {
+			System.out.println("File error occured. Score journal was not compacted: " + e);
+		}
+	}
+	
+	//Rewrite the journal with only the best and most recent runs, plus a summary line for the rest
+	private void compact() throws IOException {
+		ArrayList<RunRecord> kept = new ArrayList<>();
+		String summary;
+		synchronized (this) {
+			//Only runs already in the journal can be compacted, the rest are still waiting to be appended
+			int written = runs.size() - unwritten;
+			List<RunRecord> candidates = runs.subList(0, written);
+			ArrayList<RunRecord> best = new ArrayList<>(candidates);
+			best.sort(BEST_FIRST);
+			HashSet<RunRecord> keep = new HashSet<>(best.subList(0, Math.min(KEEP_TOP, best.size())));
+			keep.addAll(candidates.subList(Math.max(0, written - KEEP_RECENT), written));
+			
+			//Keep runs in the order they happened and fold the others into the totals
+			for (RunRecord run : candidates) {
+				if (keep.contains(run)) {
+					kept.add(run);
+				} else {
+					droppedRuns++;
+					droppedScore += run.getScore();
+					droppedMs += run.getDurationMs();
+					droppedBestLevel = Math.max(droppedBestLevel, run.getLevel());
+				}
+			}
+			ArrayList<RunRecord> pending = new ArrayList<>(runs.subList(written, runs.size()));
+			runs.clear();
+			runs.addAll(kept);
+			runs.addAll(pending);
+			String fields = "S," + droppedRuns + "," + droppedScore + "," + droppedMs + "," + droppedBestLevel;
+			summary = fields + "," + Long.toHexString(RunRecord.checksum(fields));
+		}
+		
+		//Write the new journal next to the old one and sync it
+		StringBuilder text = new StringBuilder(summary).append('\n');
+		for (RunRecord run : kept)
+			text.append(run.toLine()).append('\n');
+		try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer bytes = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+			while (bytes.hasRemaining())
+				out.write(bytes);
+			out.force(true);
+		}
+		
+		//Swap it in with one rename
+		if (channel != null) channel.close();
+		try {
+			Files.move(temp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, journal, StandardCopyOption.REPLACE_EXISTING);
+		}
+		syncFolder(journal.toAbsolutePath().getParent());
+		channel = FileChannel.open(journal, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		journalLines = kept.size() + 1;
+	}
+	
+	//Sync a folder so a rename in it survives a crash, some systems such as Windows cannot open a folder and do not need this
+	private static void syncFolder(Path folder) {
+		try (FileChannel dir = FileChannel.open(folder, StandardOpenOption.READ)) {
+			dir.force(true);
+		} catch (IOException e) {
+			//The rename is still done, it is only not synced
+		}
+	}
+	
+	//Finish every waiting write and close the journal
+	public void close() {
+		writer.shutdown();
+		try {
+			writer.awaitTermination(2, TimeUnit.SECONDS);
+			if (channel != null) channel.close();
+		} catch (InterruptedException | IOException e) {
+			System.out.println("File error occured. Some scores may not have been saved");
+		}
+	}
+	
+	//Getter methods
+	public boolean isAvailable() {
+		return available;
+	}
+	
+	public synchronized int getHighScore() {
+		return highScore;
+	}
+	
+	//Best runs, highest score first
+	public synchronized List<RunRecord> getTopRuns(int count) {
+		ArrayList<RunRecord> best = new ArrayList<>(runs);
+		best.sort(BEST_FIRST);
+		return new ArrayList<>(best.subList(0, Math.min(count, best.size())));
+	}
+	
+	public synchronized long getRunCount() {
+		return droppedRuns + runs.size();
+	}
+	
+	public synchronized double getAverageScore() {
+		long total = droppedScore;
+		for (RunRecord run : runs)
+			total += run.getScore();
+		long count = getRunCount();
+		return count > 0 ? (double) total / count : 0;
+	}
+	
+	public synchronized long getTotalPlayMs() {
+		long total = droppedMs;
+		for (RunRecord run : runs)
+			total += run.getDurationMs();
+		return total;
+	}
+	
+	public synchronized int getBestLevel() {
+		int best = droppedBestLevel;
+		for (RunRecord run : runs)
+			best = Math.max(best, run.getLevel());
+		return best;
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Name: Jack Whitman
+ * Description: The SelfPlay class plays thousands of seeded games headlessly with SelfPlayBot on every core at once, to show how the difficulty curve plays out. It reports how many games reach each level and how the games that ended there died, and it can sweep the difficulty constants to compare curves side by side.
+ */
+package caveRunner;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class SelfPlay {
+	//Constants
+	private final static int MAX_TICKS = 20 * 60 * 1000 / CaveSimulation.TICK_MS;
+	private final static DeathCause[] CAUSES = DeathCause.values();
+	
+	//How one game ended
+	private static class Result {
+		int level, score;
+		DeathCause cause;
+	}
+	
+	//Usage: SelfPlay [--games n] [--seed first] [--reaction ticks] [--endless] [--sweep name=a,b,c]...
+	public static void main(String[] args) {
+		int games = 10000, reaction = 20;
+		long firstSeed = 1;
+		boolean endless = false;
+		List<DifficultyCurve> curves = new ArrayList<>(List.of(DifficultyCurve.DEFAULT));
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "--games": games = Integer.parseInt(args[++i]); break;
+				case "--seed": firstSeed = Long.parseLong(args[++i]); break;
+				case "--reaction": reaction = Integer.parseInt(args[++i]); break;
+				case "--endless": endless = true; break;
+				case "--sweep": curves = sweep(curves, args[++i]); break;
+				default: throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+		
+		System.out.println(games + " games per curve on " + Runtime.getRuntime().availableProcessors() + " cores, " + (endless ? "endless" : "screen") + " mode, reaction " + reaction + " ticks");
+		for (DifficultyCurve curve : curves) {
+			long start = System.nanoTime();
+			List<Result> results = play(curve, games, firstSeed, reaction, endless);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			
+			System.out.println("\n" + curve + String.format(Locale.ROOT, "  (%.1f s)", seconds));
+			if (curves.size() == 1) printLevels(results);
+			else printSummary(results);
+		}
+	}
+	
+	//Every curve in curves with the named constant set to each listed value
+	private static List<DifficultyCurve> sweep(List<DifficultyCurve> curves, String spec) {
+		String[] parts = spec.split("=");
+		if (parts.length != 2) throw new IllegalArgumentException("Sweeps look like name=a,b,c, not " + spec);
+		List<DifficultyCurve> swept = new ArrayList<>();
+		for (DifficultyCurve curve : curves)
+			for (String value : parts[1].split(","))
+				swept.add(curve.with(parts[0], Double.parseDouble(value)));
+		return swept;
+	}
+	
+	//Play games games in parallel, each with its own seed
+	private static List<Result> play(DifficultyCurve curve, int games, long firstSeed, int reaction, boolean endless) {
+		return IntStream.range(0, games).parallel().mapToObj(i -> playOne(curve, firstSeed + i, reaction, endless)).collect(Collectors.toList());
+	}
+	
+	private static Result playOne(DifficultyCurve curve, long seed, int reaction, boolean endless) {
+		CaveSimulation sim = new CaveSimulation(ReplayPlayer.NO_LISTENER, endless, seed, curve);
+		sim.setVerbose(false);
+		SelfPlayBot bot = new SelfPlayBot(reaction);
+		while (!sim.isDead() && sim.getTick() < MAX_TICKS)
+			sim.step(bot.decide(sim));
+		
+		Result result = new Result();
+		result.level = sim.getLevel();
+		result.score = sim.getScore();
+		result.cause = sim.getDeathCause();
+		return result;
+	}
+	
+	//Survival curve, how many games reached each level and how the ones that ended there died
+	private static void printLevels(List<Result> results) {
+		int maxLevel = 0;
+		for (Result result : results)
+			maxLevel = Math.max(maxLevel, result.level);
+		int[] reached = new int[maxLevel + 2];
+		int[][] causes = new int[maxLevel + 1][CAUSES.length];
+		for (Result result : results) {
+			reached[result.level]++;
+			causes[result.level][result.cause.ordinal()]++;
+		}
+		for (int level = maxLevel - 1; level >= 0; level--)
+			reached[level] += reached[level + 1];
+		
+		StringBuilder header = new StringBuilder(String.format(Locale.ROOT, "%5s %9s %7s", "level", "reached", "ended"));
+		for (DeathCause cause : CAUSES)
+			header.append(String.format(Locale.ROOT, " %10s", cause == DeathCause.NONE ? "TIMED_OUT" : cause));
+		System.out.println(header);
+		for (int level = 0; level <= maxLevel; level++) {
+			StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%5d %8.1f%% %7d", level, 100.0 * reached[level] / results.size(), reached[level] - reached[level + 1]));
+			for (int cause = 0; cause < CAUSES.length; cause++)
+				line.append(String.format(Locale.ROOT, " %10d", causes[level][cause]));
+			System.out.println(line);
+		}
+		printSummary(results);
+	}
+	
+	//One line of averages and percentiles for comparing curves
+	private static void printSummary(List<Result> results) {
+		int[] levels = new int[results.size()];
+		int[] causes = new int[CAUSES.length];
+		long totalScore = 0;
+		for (int i = 0; i < levels.length; i++) {
+			Result result = results.get(i);
+			levels[i] = result.level;
+			totalScore += result.score;
+			causes[result.cause.ordinal()]++;
+		}
+		Arrays.sort(levels);
+		
+		StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "level p10 %d  p50 %d  p90 %d  max %d  mean score %.1f ", levels[levels.length / 10], levels[levels.length / 2], levels[levels.length * 9 / 10], levels[levels.length - 1], (double) totalScore / levels.length));
+		for (DeathCause cause : CAUSES)
+			line.append(String.format(Locale.ROOT, " %s %.1f%%", cause == DeathCause.NONE ? "TIMED_OUT" : cause, 100.0 * causes[cause.ordinal()] / levels.length));
+		System.out.println(line);
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Name: Jack Whitman
+ * Description: The SelfPlayBot class is a scripted player for testing the game's difficulty. It runs right and jumps when it is blocked or reaches a jump block, and once it notices the cave closing it heads for the nearest gap and waits there until the cave is open again. It notices the cave closing a set number of ticks late, to stand in for a human's reaction time.
+ */
+package caveRunner;
+
+public class SelfPlayBot {
+	//Constants
+	private final static int SEARCH_COLUMNS = 12, GAP_MARGIN = CaveColumns.BLOCK_WIDTH / 2 - 8;
+	
+	//Instance vars
+	private int reactionTicks, closingTicks, lastX, gapColumn, level;
+	private boolean wasMoving, headingRight;
+	private InputState input;
+	
+	public SelfPlayBot(int reactionTicks) {
+		this.reactionTicks = reactionTicks;
+		input = new InputState();
+		gapColumn = -1;
+	}
+	
+	//Keys to hold for the next tick
+	public InputState decide(CaveSimulation sim) {
+		CaveColumns columns = sim.getColumns();
+		int centerX = sim.getPlayerX() + Player.CHAR_WIDTH / 2;
+		int column = Math.floorDiv(centerX, CaveColumns.BLOCK_WIDTH);
+		boolean blocked = wasMoving && sim.getPlayerX() == lastX;
+		lastX = sim.getPlayerX();
+		
+		//A new screen has new columns
+		if (sim.getLevel() != level) {
+			level = sim.getLevel();
+			gapColumn = -1;
+		}
+		
+		//Count how long the cave has been closing, and forget the gap once it is open
+		if (sim.getClosure(1) > 0) {
+			closingTicks++;
+		} else {
+			closingTicks = 0;
+			gapColumn = -1;
+		}
+		
+		boolean left = false, right = true;
+		if (closingTicks > reactionTicks) {
+			//Pick a gap, giving up on one behind if the way back is blocked
+			if (gapColumn < 0 || !columns.has(gapColumn) || blocked && !headingRight) gapColumn = nearestGap(columns, column, blocked && !headingRight);
+			
+			//Walk to the middle of the gap and wait
+			right = false;
+			if (gapColumn >= 0) {
+				int offset = centerX - (columns.getX(gapColumn) + CaveColumns.BLOCK_WIDTH / 2);
+				left = offset > GAP_MARGIN;
+				right = offset < -GAP_MARGIN;
+			}
+		}
+		
+		//Jump when stuck or about to reach a jump block
+		boolean atJumpBlock = columns.has(column + 1) && columns.isJumpBlock(column + 1) && Math.floorMod(centerX, CaveColumns.BLOCK_WIDTH) >= CaveColumns.BLOCK_WIDTH / 4;
+		boolean jump = sim.isOnGround() && (blocked || right && atJumpBlock);
+		
+		wasMoving = left || right;
+		headingRight = right;
+		input.setLeft(left);
+		input.setRight(right);
+		input.setJump(jump);
+		return input;
+	}
+	
+	//Closest gap column to column, or -1 if none are nearby
+	private static int nearestGap(CaveColumns columns, int column, boolean onlyAhead) {
+		for (int distance = 0; distance <= SEARCH_COLUMNS; distance++) {
+			if (columns.has(column + distance) && columns.isGap(column + distance)) return column + distance;
+			if (!onlyAhead && columns.has(column - distance) && columns.isGap(column - distance)) return column - distance;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,76 @@
+/*
+ * Name: Jack Whitman
+ * Description: The SimEvents class passes the simulation's effect events, like the cave closing or the player landing, from the simulation thread to the renderer without locks. Each event is stored with the step it happened on, so the renderer can play them into the CaveEffects on the step they belong to. Events that arrive while the queue is full are dropped, since they only start particles.
+ */
+package caveRunner;
+
+public class SimEvents {
+	//Constants, capacity must be a power of two
+	private final static int CAPACITY = 1024, MASK = CAPACITY - 1;
+	
+	//Kinds of event
+	public final static int CAVE_CLOSING = 0, CAVE_OPENING = 1, LANDED = 2, STEP = 3, REGENERATED = 4;
+	
+	//Event data, written by the simulation thread and read by the renderer
+	private final long[] ticks = new long[CAPACITY];
+	private final int[] kinds = new int[CAPACITY], xs = new int[CAPACITY], ys = new int[CAPACITY], values = new int[CAPACITY];
+	
+	//Next event to read and next event to write, only the reader moves head and only the writer moves tail
+	private volatile long head, tail;
+	private volatile int dropped;
+	
+	//Add an event that happened on step tick, called only from the simulation thread
+	public boolean offer(long tick, int kind, int x, int y, int value) {
+		long t = tail;
+		if (t - head == CAPACITY) {
+			dropped++;
+			return false;
+		}
+		int i = (int) (t & MASK);
+		ticks[i] = tick;
+		kinds[i] = kind;
+		xs[i] = x;
+		ys[i] = y;
+		values[i] = value;
+		
+		//Writing tail publishes the event to the reader
+		tail = t + 1;
+		return true;
+	}
+	
+	//Play every event up to and including step tick into effects in order, called only from the renderer
+	public void drainTo(CaveEffects effects, long tick) {
+		long h = head, t = tail;
+		for (; h < t; h++) {
+			int i = (int) (h & MASK);
+			if (ticks[i] > tick) break;
+			switch (kinds[i]) {
+				case CAVE_CLOSING:
+					effects.caveClosing();
+					break;
+				case CAVE_OPENING:
+					effects.caveOpening();
+					break;
+				case LANDED:
+					effects.playerLanded(xs[i], ys[i], values[i]);
+					break;
+				case STEP:
+					effects.playerCrossedStep(xs[i], ys[i]);
+					break;
+				case REGENERATED:
+					effects.reset();
+					break;
+			}
+		}
+		head = h;
+	}
+	
+	//Throw away waiting events, called only while the simulation thread is stopped
+	public void clear() {
+		head = tail;
+	}
+	
+	public int getDropped() {
+		return dropped;
+	}
+}
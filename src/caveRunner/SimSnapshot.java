@@ -0,0 +1,104 @@
+/*
+ * Name: Jack Whitman
+ * Description: The SimSnapshot class is a copy of everything the renderers need from one step of the CaveSimulation: the player's position, the camera, how far the cave has closed, the score, and the columns, along with the values from the step before so frames can be drawn between steps. The simulation thread fills snapshots and the renderer reads them, so the renderer never touches the simulation while it is stepping.
+ */
+package caveRunner;
+
+public class SimSnapshot {
+	//Instance vars for the step the snapshot was taken at
+	private long tick, publishedNanos;
+	private boolean endless, dead, facingBack, caveClosing;
+	private int level, score;
+	private int animation;
+	private CaveColumns columns;
+	
+	//Instance vars for positions at this step and the step before
+	private int plrX, plrY, prevPlrX, prevPlrY, cameraX, prevCameraX;
+	private float closure, prevClosure;
+	
+	public SimSnapshot(int columnCapacity) {
+		columns = new CaveColumns(columnCapacity);
+	}
+	
+	//Copy the state of sim, taken at nanos
+	public void copyFrom(CaveSimulation sim, long nanos) {
+		tick = sim.getTick();
+		publishedNanos = nanos;
+		endless = sim.isEndless();
+		dead = sim.isDead();
+		facingBack = sim.isFacingBack();
+		caveClosing = sim.isCaveClosing();
+		level = sim.getLevel();
+		score = sim.getScore();
+		animation = sim.getAnimation();
+		columns.copyFrom(sim.getColumns());
+		plrX = sim.getPlayerX(1);
+		plrY = sim.getPlayerY(1);
+		prevPlrX = sim.getPlayerX(0);
+		prevPlrY = sim.getPlayerY(0);
+		cameraX = sim.getCameraX(1);
+		prevCameraX = sim.getCameraX(0);
+		closure = sim.getClosure(1);
+		prevClosure = sim.getClosure(0);
+	}
+	
+	//How far between the step before and this one to draw at time nanos, reaching 1 one step after the snapshot was taken
+	public float getAlpha(long nanos, long stepNanos) {
+		return Math.max(0, Math.min(1, (float) (nanos - publishedNanos) / stepNanos));
+	}
+	
+	//Positions between the two steps, alpha goes from 0 at the step before to 1 at this one
+	public int getPlayerX(float alpha) {
+		return Math.round(prevPlrX + (plrX - prevPlrX) * alpha);
+	}
+	
+	public int getPlayerY(float alpha) {
+		return Math.round(prevPlrY + (plrY - prevPlrY) * alpha);
+	}
+	
+	public int getCameraX(float alpha) {
+		return Math.round(prevCameraX + (cameraX - prevCameraX) * alpha);
+	}
+	
+	public float getClosure(float alpha) {
+		return prevClosure + (closure - prevClosure) * alpha;
+	}
+	
+	//How far the player has run in total, used to scroll the background
+	public float getDistance(float alpha) {
+		return endless ? getCameraX(alpha) : level * CaveSimulation.PANEL_WIDTH + getPlayerX(alpha);
+	}
+	
+	//Getter methods
+	public long getTick() {
+		return tick;
+	}
+	
+	public CaveColumns getColumns() {
+		return columns;
+	}
+	
+	public boolean isDead() {
+		return dead;
+	}
+	
+	public boolean isFacingBack() {
+		return facingBack;
+	}
+	
+	public boolean isCaveClosing() {
+		return caveClosing;
+	}
+	
+	public int getLevel() {
+		return level;
+	}
+	
+	public int getScore() {
+		return score;
+	}
+	
+	public int getAnimation() {
+		return animation;
+	}
+}
@@ -0,0 +1,28 @@
+/*
+ * Name: Jack Whitman
+ * Description: The SimulationListener interface lets the game frame and panels react to events from the CaveSimulation without the simulation knowing about Swing.
+ */
+package caveRunner;
+
+public interface SimulationListener {
+	//Player passed a new block
+	void scoreIncreased();
+	
+	//Player got crushed by the cave
+	void playerDied();
+	
+	//A new screen of cave was generated
+	void caveRegenerated();
+	
+	//The cave started closing
+	void caveClosing();
+	
+	//The cave finished closing and started opening again
+	void caveOpening();
+	
+	//Player landed on the floor at x, y after falling speed pixels a tick
+	void playerLanded(int x, int y, int speed);
+	
+	//Player walked past a step between two floors, x is the edge and y is the higher floor
+	void playerCrossedStep(int x, int y);
+}
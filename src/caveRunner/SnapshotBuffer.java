@@ -0,0 +1,37 @@
+/*
+ * Name: Jack Whitman
+ * Description: The SnapshotBuffer class hands SimSnapshots from the simulation thread to the renderer without locks, using three snapshots. The simulation fills its own snapshot and swaps it with the middle one, and the renderer swaps its own snapshot with the middle one whenever a newer one is waiting there. Neither side ever waits, the renderer always gets the latest finished step, and the snapshot it is drawing is never written to.
+ */
+package caveRunner;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SnapshotBuffer {
+	//Constants, the middle slot holds an index and a bit saying the renderer has not taken it yet
+	private final static int INDEX_MASK = 3, FRESH = 4;
+	
+	//Instance vars
+	private SimSnapshot[] snapshots;
+	private AtomicInteger middle;
+	private int writeIndex, readIndex;
+	
+	public SnapshotBuffer(int columnCapacity) {
+		snapshots = new SimSnapshot[3];
+		for (int i = 0; i < snapshots.length; i++)
+			snapshots[i] = new SimSnapshot(columnCapacity);
+		writeIndex = 0;
+		middle = new AtomicInteger(1);
+		readIndex = 2;
+	}
+	
+	//Copy sim into the simulation's snapshot and make it the latest, called only from the simulation side
+	public void publish(CaveSimulation sim) {
+		snapshots[writeIndex].copyFrom(sim, System.nanoTime());
+		writeIndex = middle.getAndSet(writeIndex | FRESH) & INDEX_MASK;
+	}
+	
+	//Latest published snapshot, called only from the renderer, it stays valid until the next call
+	public SimSnapshot getLatest() {
+		if ((middle.get() & FRESH) != 0) readIndex = middle.getAndSet(readIndex) & INDEX_MASK;
+		return snapshots[readIndex];
+	}
+}
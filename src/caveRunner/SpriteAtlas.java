@@ -0,0 +1,76 @@
+/*
+ * Name: Jack Whitman
+ * Description: The SpriteAtlas class packs the frames of every clip in an AnimationSet, already scaled to the player's size, into one display-compatible image. The top row holds the frames facing right and the bottom row holds the same frames mirrored, and frames are looked up by clip index and frame.
+ */
+package caveRunner;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+public class SpriteAtlas {
+	//Instance vars
+	private AnimationSet animations;
+	private BufferedImage atlas;
+	private int frameWidth, frameHeight;
+	private int[] firstFrame;
+	
+	//Pack every frame of the clips in the animation manifest, scaled to width by height
+	public SpriteAtlas(int frameWidth, int frameHeight) {
+		this(AnimationSet.load(AnimationSet.MANIFEST), frameWidth, frameHeight);
+	}
+	
+	public SpriteAtlas(AnimationSet animations, int frameWidth, int frameHeight) {
+		this.animations = animations;
+		this.frameWidth = frameWidth;
+		this.frameHeight = frameHeight;
+		
+		//Find where each clip starts in the row
+		firstFrame = new int[animations.getClipCount()];
+		int totalFrames = 0;
+		for (int i = 0; i < firstFrame.length; i++) {
+			firstFrame[i] = totalFrames;
+			totalFrames += animations.getClip(i).getFrameCount();
+		}
+		
+		//Draw every frame and its mirror into the atlas
+		atlas = Images.createCompatible(Math.max(totalFrames, 1) * frameWidth, frameHeight * 2, Transparency.TRANSLUCENT);
+		Graphics2D g = atlas.createGraphics();
+		for (int clip = 0; clip < firstFrame.length; clip++) {
+			for (int i = 0; i < animations.getClip(clip).getFrameCount(); i++) {
+				BufferedImage frame = Images.loadScaled(animations.getClip(clip).getFramePath(i), frameWidth, frameHeight, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR, Transparency.TRANSLUCENT);
+				if (frame == null) continue;
+				int x = (firstFrame[clip] + i) * frameWidth;
+				g.drawImage(frame, x, 0, null);
+				g.drawImage(frame, x + frameWidth, frameHeight, -frameWidth, frameHeight, null);
+			}
+		}
+		g.dispose();
+	}
+	
+	//Clips the atlas was packed from
+	public AnimationSet getAnimations() {
+		return animations;
+	}
+	
+	//Left edge of a frame in the atlas
+	public int getFrameX(int clip, int index) {
+		return (firstFrame[clip] + index) * frameWidth;
+	}
+	
+	//Top edge of a frame in the atlas
+	public int getFrameY(boolean flipped) {
+		return flipped ? frameHeight : 0;
+	}
+	
+	//Draw one frame of a clip with its top left corner at x, y
+	public void draw(Graphics g, int clip, int index, boolean flipped, int x, int y) {
+		int sx = getFrameX(clip, index), sy = getFrameY(flipped);
+		g.drawImage(atlas, x, y, x + frameWidth, y + frameHeight, sx, sy, sx + frameWidth, sy + frameHeight, null);
+	}
+	
+	public BufferedImage getImage() {
+		return atlas;
+	}
+}
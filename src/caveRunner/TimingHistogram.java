@@ -0,0 +1,80 @@
+/*
+ * Name: Jack Whitman
+ * Description: The TimingHistogram class keeps the most recent timings of one kind, such as simulation ticks, so their percentiles can be shown while the game runs. It also counts every timing of the run into power-of-two microsecond buckets that can be written out as CSV.
+ */
+package caveRunner;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+public class TimingHistogram {
+	//Constants
+	private final static int WINDOW = 1024, BUCKETS = 32;
+	
+	//Instance vars
+	private String name;
+	private long[] recent, sorted;
+	private long[] buckets;
+	private int next, size;
+	private long count, totalNanos, last;
+	
+	public TimingHistogram(String name) {
+		this.name = name;
+		recent = new long[WINDOW];
+		sorted = new long[WINDOW];
+		buckets = new long[BUCKETS];
+	}
+	
+	//Add one timing
+	public synchronized void record(long nanos) {
+		last = nanos;
+		recent[next] = nanos;
+		next = (next + 1) % WINDOW;
+		size = Math.min(size + 1, WINDOW);
+		count++;
+		totalNanos += nanos;
+		buckets[bucket(nanos)]++;
+	}
+	
+	//Bucket b holds timings from 2^b up to 2^(b+1) microseconds, bucket 0 also holds anything under 1 microsecond
+	private static int bucket(long nanos) {
+		long micros = nanos / 1000;
+		return micros <= 1 ? 0 : Math.min(63 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+	}
+	
+	//Percentiles of the recent timings, p goes from 0 to 100
+	public synchronized long[] percentiles(double... p) {
+		long[] results = new long[p.length];
+		if (size == 0) return results;
+		System.arraycopy(recent, 0, sorted, 0, size);
+		Arrays.sort(sorted, 0, size);
+		for (int i = 0; i < p.length; i++)
+			results[i] = sorted[Math.min((int) (p[i] / 100 * size), size - 1)];
+		return results;
+	}
+	
+	//Write one line per non-empty bucket as name,from_us,to_us,count
+	public synchronized void writeCsv(Writer writer) throws IOException {
+		for (int b = 0; b < BUCKETS; b++) {
+			if (buckets[b] == 0) continue;
+			writer.write(name + "," + (b == 0 ? 0 : 1L << b) + "," + (1L << (b + 1)) + "," + buckets[b] + "\n");
+		}
+	}
+	
+	//Getter methods
+	public String getName() {
+		return name;
+	}
+	
+	public synchronized long getCount() {
+		return count;
+	}
+	
+	public synchronized long getAverageNanos() {
+		return count > 0 ? totalNanos / count : 0;
+	}
+	
+	public synchronized long getLast() {
+		return last;
+	}
+}
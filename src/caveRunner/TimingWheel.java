@@ -0,0 +1,191 @@
+/*
+ * Name: Jack Whitman
+ * Description: The TimingWheel class schedules game events by simulation tick. It is a hashed timing wheel: each event goes in the slot for its tick modulo the number of slots, in a linked list held in preallocated arrays, so scheduling and cancelling are a few array writes and advancing a tick only looks at one slot. Events due on the same tick run in the order they were scheduled, so a game plays out the same way every time it is replayed.
+ */
+package caveRunner;
+import java.util.Arrays;
+
+public class TimingWheel {
+	//Constants
+	public final static int NONE = -1;
+	private final static int SAVED_INTS_PER_EVENT = 7;
+	
+	//Slot lists, the first and last event due on each slot's ticks
+	private int[] heads, tails;
+	private int mask;
+	
+	//Event data, indexed by event, next doubles as the free list for unused events
+	private long[] due, order;
+	private int[] kinds, generations, next, prev;
+	private int capacity, freeHead, count;
+	
+	//Events being restored, sorted by when they were scheduled
+	private int[] restoring;
+	
+	//Instance vars for the current tick and which event poll looks at next
+	private long now, nextOrder;
+	private int cursor;
+	
+	//Create a wheel with slots slots, a power of two, that holds up to capacity events at once
+	public TimingWheel(int slots, int capacity) {
+		if (Integer.bitCount(slots) != 1) throw new IllegalArgumentException("Timing wheel slots must be a power of two, not " + slots);
+		mask = slots - 1;
+		heads = new int[slots];
+		tails = new int[slots];
+		this.capacity = capacity;
+		due = new long[capacity];
+		order = new long[capacity];
+		kinds = new int[capacity];
+		generations = new int[capacity];
+		next = new int[capacity];
+		prev = new int[capacity];
+		restoring = new int[capacity];
+		clear();
+	}
+	
+	//Throw away every event and go back to tick 0
+	public void clear() {
+		Arrays.fill(heads, NONE);
+		Arrays.fill(tails, NONE);
+		for (int i = 0; i < capacity; i++) {
+			due[i] = NONE;
+			next[i] = i + 1 < capacity ? i + 1 : NONE;
+		}
+		freeHead = 0;
+		count = 0;
+		now = nextOrder = 0;
+		cursor = NONE;
+	}
+	
+	//Run an event of kind on tick, which must be after the current tick, and return a handle that can cancel it
+	public int schedule(long tick, int kind) {
+		if (tick <= now) throw new IllegalArgumentException("Event scheduled for tick " + tick + " which is not after tick " + now);
+		if (freeHead == NONE) throw new IllegalStateException("Timing wheel is full, it holds " + capacity + " events");
+		int event = freeHead;
+		freeHead = next[event];
+		generations[event] = (generations[event] + 1) % (Integer.MAX_VALUE / capacity);
+		due[event] = tick;
+		order[event] = nextOrder++;
+		kinds[event] = kind;
+		link(event);
+		return generations[event] * capacity + event;
+	}
+	
+	//Cancel an event that has not run yet, returns false if handle is NONE or its event already ran or was cancelled
+	public boolean cancel(int handle) {
+		if (handle < 0) return false;
+		int event = handle % capacity;
+		if (due[event] == NONE || generations[event] != handle / capacity) return false;
+		remove(event);
+		return true;
+	}
+	
+	//Move to tick, after which poll returns the events due on it
+	public void advanceTo(long tick) {
+		now = tick;
+		cursor = heads[slot(tick)];
+	}
+	
+	//Take the next event due on the current tick and return its kind, or NONE once every one has run
+	public int poll() {
+		while (cursor != NONE) {
+			int event = cursor;
+			cursor = next[event];
+			if (due[event] == now) {
+				int kind = kinds[event];
+				remove(event);
+				return kind;
+			}
+		}
+		return NONE;
+	}
+	
+	//Add an event to the end of its slot's list
+	private void link(int event) {
+		int s = slot(due[event]);
+		prev[event] = tails[s];
+		next[event] = NONE;
+		if (tails[s] == NONE) heads[s] = event;
+		else next[tails[s]] = event;
+		tails[s] = event;
+		count++;
+	}
+	
+	//Take an event out of its slot's list and put it on the free list
+	private void remove(int event) {
+		int s = slot(due[event]);
+		if (cursor == event) cursor = next[event];
+		if (prev[event] == NONE) heads[s] = next[event];
+		else next[prev[event]] = next[event];
+		if (next[event] == NONE) tails[s] = prev[event];
+		else prev[next[event]] = prev[event];
+		due[event] = NONE;
+		next[event] = freeHead;
+		freeHead = event;
+		count--;
+	}
+	
+	private int slot(long tick) {
+		return (int) tick & mask;
+	}
+	
+	//Save the tick and every waiting event to rewind
+	public void save(RewindBuffer rewind) {
+		rewind.putLong(now);
+		rewind.putLong(nextOrder);
+		rewind.putInt(count);
+		for (int event = 0; event < capacity; event++) {
+			if (due[event] == NONE) continue;
+			rewind.putInt(event);
+			rewind.putInt(generations[event]);
+			rewind.putInt(kinds[event]);
+			rewind.putLong(due[event]);
+			rewind.putLong(order[event]);
+		}
+	}
+	
+	//Load the events saved by save, each one keeps its handle and they are linked back in the order they were scheduled
+	public void restore(RewindBuffer rewind) {
+		clear();
+		now = rewind.getLong();
+		nextOrder = rewind.getLong();
+		int saved = rewind.getInt();
+		for (int i = 0; i < saved; i++) {
+			int event = rewind.getInt();
+			generations[event] = rewind.getInt();
+			kinds[event] = rewind.getInt();
+			due[event] = rewind.getLong();
+			order[event] = rewind.getLong();
+			
+			//Insertion sort by when each event was scheduled, there are only a few
+			int j = i;
+			for (; j > 0 && order[restoring[j - 1]] > order[event]; j--)
+				restoring[j] = restoring[j - 1];
+			restoring[j] = event;
+		}
+		
+		//Link the events oldest first, and put the unused ones back on the free list
+		for (int i = 0; i < saved; i++)
+			link(restoring[i]);
+		freeHead = NONE;
+		for (int event = capacity - 1; event >= 0; event--) {
+			if (due[event] != NONE) continue;
+			next[event] = freeHead;
+			freeHead = event;
+		}
+	}
+	
+	//Ints save writes at most
+	public int getSavedInts() {
+		return 5 + capacity * SAVED_INTS_PER_EVENT;
+	}
+	
+	//Getter methods
+	public long getTick() {
+		return now;
+	}
+	
+	public int getCount() {
+		return count;
+	}
+}